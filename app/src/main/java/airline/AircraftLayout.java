@@ -0,0 +1,157 @@
+package airline;
+
+import java.sql.*;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Seat plan of an aircraft type, from the aircraft_layouts table.
+//   RowPattern    seat types across a row, W / M / A, with | marking aisles: "WMA|AMW"
+//   CabinClasses  class code and row range per cabin: "B:1-3,E:4-30"; other rows are Economy
+//   ExitRows      comma-separated row numbers
+// Seat numbers run row by row from 1. Type, class and exit-row flag of every seat are packed into
+// one byte per seat when the layout is loaded, and the allocator's row tables are built once per
+// layout; all flights flying the layout share both.
+class AircraftLayout {
+    static final String SELECT_LAYOUTS_SQL = "SELECT LayoutCode, Description, RowPattern, SeatRows, CabinClasses, ExitRows FROM aircraft_layouts";
+    static final String DEFAULT_CODE = "STD6";
+
+    private static final int MAX_SEATS_PER_ROW = 10;
+    private static final String SEAT_LETTERS = "ABCDEFGHJK";
+    private static final SeatType[] TYPES = SeatType.values();
+    private static final CabinClass[] CLASSES = CabinClass.values();
+    private static final int EXIT_ROW = 1 << 4;
+
+    // Generic single-aisle layout; flights from before layouts existed use it
+    private static final AircraftLayout DEFAULT = parse(DEFAULT_CODE, "Generic 6-abreast", "WMA|AMW", 500, "E:1-500", "");
+
+    private static volatile Map<String, AircraftLayout> layouts = Map.of(DEFAULT_CODE, DEFAULT);
+
+    final String code;
+    final String description;
+    final int rows;
+    final int seatsPerRow;
+    final SeatAllocator.RowTables rowTables;
+    // Per seat: bits 0-1 seat type, bits 2-3 cabin class, bit 4 exit row
+    private final byte[] seatInfo;
+
+    private AircraftLayout(String code, String description, SeatType[] pattern, int rows, byte[] seatInfo) {
+        this.code = code;
+        this.description = description;
+        this.rows = rows;
+        this.seatsPerRow = pattern.length;
+        this.rowTables = new SeatAllocator.RowTables(pattern);
+        this.seatInfo = seatInfo;
+    }
+
+    static void loadAll(ConnectionPool pool) throws SQLException {
+        Map<String, AircraftLayout> loaded = new LinkedHashMap<>();
+        try (PooledConnection con = pool.acquire();
+             ResultSet rs = con.prepare(SELECT_LAYOUTS_SQL).executeQuery()) {
+            while (rs.next()) {
+                AircraftLayout layout = parse(rs.getString("LayoutCode"), rs.getString("Description"),
+                        rs.getString("RowPattern"), rs.getInt("SeatRows"), rs.getString("CabinClasses"), rs.getString("ExitRows"));
+                loaded.put(layout.code, layout);
+            }
+        }
+        loaded.putIfAbsent(DEFAULT_CODE, DEFAULT);
+        layouts = loaded;
+    }
+
+    // The layout with that code, or null
+    static AircraftLayout get(String code) {
+        return code == null ? null : layouts.get(code);
+    }
+
+    // Layout of a flight; unknown codes fall back to the default
+    static AircraftLayout of(FlightInfo flight) {
+        AircraftLayout layout = get(flight.layoutCode);
+        return layout != null ? layout : DEFAULT;
+    }
+
+    static Collection<AircraftLayout> all() {
+        return layouts.values();
+    }
+
+    int seatCount() {
+        return rows * seatsPerRow;
+    }
+
+    SeatType seatType(int seatNumber) {
+        return TYPES[info(seatNumber) & 3];
+    }
+
+    CabinClass cabinClass(int seatNumber) {
+        return CLASSES[(info(seatNumber) >> 2) & 3];
+    }
+
+    boolean isExitRow(int seatNumber) {
+        return (info(seatNumber) & EXIT_ROW) != 0;
+    }
+
+    // Row number and letter, e.g. 12C
+    String seatLabel(int seatNumber) {
+        int idx = seatNumber - 1;
+        return (idx / seatsPerRow + 1) + String.valueOf(SEAT_LETTERS.charAt(idx % seatsPerRow));
+    }
+
+    private int info(int seatNumber) {
+        int idx = seatNumber - 1;
+        // Seats past the last row (flights over-sized for their layout) repeat the last row
+        if (idx >= seatInfo.length) idx = seatInfo.length - seatsPerRow + idx % seatsPerRow;
+        return seatInfo[idx];
+    }
+
+    static AircraftLayout parse(String code, String description, String rowPattern, int rows,
+                                String cabinClasses, String exitRows) {
+        String compact = rowPattern.replace("|", "").trim();
+        if (compact.isEmpty() || compact.length() > MAX_SEATS_PER_ROW) {
+            throw new IllegalArgumentException("Layout " + code + ": a row needs 1 to " + MAX_SEATS_PER_ROW + " seats");
+        }
+        if (rows < 1) {
+            throw new IllegalArgumentException("Layout " + code + ": rows must be positive");
+        }
+        SeatType[] pattern = new SeatType[compact.length()];
+        for (int p = 0; p < pattern.length; p++) {
+            switch (Character.toUpperCase(compact.charAt(p))) {
+                case 'W': pattern[p] = SeatType.WINDOW; break;
+                case 'M': pattern[p] = SeatType.MIDDLE; break;
+                case 'A': pattern[p] = SeatType.AISLE; break;
+                default: throw new IllegalArgumentException("Layout " + code + ": unknown seat type " + compact.charAt(p));
+            }
+        }
+
+        CabinClass[] classByRow = new CabinClass[rows];
+        Arrays.fill(classByRow, CabinClass.ECONOMY);
+        if (cabinClasses != null && !cabinClasses.isBlank()) {
+            for (String cabin : cabinClasses.split(",")) {
+                String[] parts = cabin.trim().split("[:-]");
+                CabinClass cabinClass = CabinClass.ofCode(parts[0].charAt(0));
+                int first = Integer.parseInt(parts[1]);
+                int last = parts.length > 2 ? Integer.parseInt(parts[2]) : first;
+                for (int row = Math.max(first, 1); row <= Math.min(last, rows); row++) {
+                    classByRow[row - 1] = cabinClass;
+                }
+            }
+        }
+
+        boolean[] exitRow = new boolean[rows];
+        if (exitRows != null && !exitRows.isBlank()) {
+            for (String row : exitRows.split(",")) {
+                int r = Integer.parseInt(row.trim());
+                if (r >= 1 && r <= rows) exitRow[r - 1] = true;
+            }
+        }
+
+        byte[] seatInfo = new byte[rows * pattern.length];
+        for (int row = 0; row < rows; row++) {
+            for (int p = 0; p < pattern.length; p++) {
+                seatInfo[row * pattern.length + p] = (byte) (pattern[p].ordinal()
+                        | classByRow[row].ordinal() << 2
+                        | (exitRow[row] ? EXIT_ROW : 0));
+            }
+        }
+        return new AircraftLayout(code, description, pattern, rows, seatInfo);
+    }
+}
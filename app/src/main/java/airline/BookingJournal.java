@@ -0,0 +1,127 @@
+package airline;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Append-only file of booking changes, written before a change is acknowledged and replayed after a crash.
+// Record layout: int body length, body (long sequence, change fields), int CRC32 of the body.
+// A torn or corrupt record ends the readable part of the file; it and anything after it are cut off
+// when the journal is opened.
+// sync() is a group commit: one force() covers every record appended before it started, so concurrent
+// bookers share the cost of the disk flush.
+class BookingJournal implements AutoCloseable {
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+
+    private final FileChannel channel;
+    private final Object syncLock = new Object();
+    // Guarded by this
+    private long lastAppended;
+    // Guarded by syncLock
+    private long lastSynced;
+
+    private BookingJournal(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    static BookingJournal open(Path path) throws IOException {
+        return new BookingJournal(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE));
+    }
+
+    // Every intact record from the start of the file; cuts off a damaged tail
+    synchronized List<WriteBehindQueue.Change> readAll() throws IOException {
+        List<WriteBehindQueue.Change> changes = new ArrayList<>();
+        long position = 0;
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(4);
+        while (position + 4 <= size) {
+            header.clear();
+            channel.read(header, position);
+            int length = header.getInt(0);
+            if (length <= 0 || length > MAX_RECORD_BYTES || position + 8 + length > size) break;
+
+            ByteBuffer record = ByteBuffer.allocate(length + 4);
+            channel.read(record, position + 4);
+            CRC32 crc = new CRC32();
+            crc.update(record.array(), 0, length);
+            if ((int) crc.getValue() != record.getInt(length)) break;
+
+            WriteBehindQueue.Change change = WriteBehindQueue.Change.readFrom(
+                    new DataInputStream(new ByteArrayInputStream(record.array(), 0, length)));
+            changes.add(change);
+            lastAppended = change.sequence;
+            position += 8 + length;
+        }
+        if (position < size) {
+            System.out.println("Booking journal: dropped " + (size - position) + " damaged bytes at the end");
+            channel.truncate(position);
+        }
+        channel.position(position);
+        return changes;
+    }
+
+    // Writes the change at the end of the file; durable only after sync(change.sequence)
+    synchronized void append(WriteBehindQueue.Change change) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        change.writeTo(out);
+        int length = bytes.size() - 4;
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray(), 4, length);
+        out.writeInt((int) crc.getValue());
+
+        ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+        record.putInt(0, length);
+        long start = channel.position();
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        } catch (IOException e) {
+            // Cut off the partial record so later appends are not hidden behind it on replay
+            channel.truncate(start);
+            channel.position(start);
+            throw e;
+        }
+        lastAppended = change.sequence;
+    }
+
+    // Returns once the record with this sequence, and every one before it, is on disk
+    void sync(long sequence) throws IOException {
+        synchronized (syncLock) {
+            if (lastSynced >= sequence) return;
+            long upTo;
+            synchronized (this) {
+                upTo = lastAppended;
+            }
+            channel.force(false);
+            lastSynced = upTo;
+        }
+    }
+
+    // Empties the file; only called once every appended change is in the database
+    synchronized void reset() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+    }
+
+    synchronized long size() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,239 @@
+package airline;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Command-processing mode, enabled by -Dbooking.loops=N: bookings, direct seat bookings and cancellations
+// are queued by flight number onto N single-threaded loops, each fed by a bounded ring buffer
+// (-Dbooking.loop.queue, default 4096; a full buffer makes callers wait, for up to TIMEOUT_SECONDS).
+// Only these three commands go through the loops. Holds (Select Specific Seat and /holds), hold expiry,
+// renames, other instances' changes from SeatChangeFeed, flight deletion and eviction still change seat
+// maps on their own threads, so the flight lock is what keeps a map consistent; a loop only spares its
+// bookings from contending with each other for it.
+// A loop drains up to MAX_BATCH commands at a time and writes the bookings for one flight among them
+// with ReservationEngine.bookBatch(): one lock acquisition and one transaction per flight per drain.
+// Commands in one drain were all waiting at the same time, so they may be applied in any order; other
+// commands run before the grouped bookings.
+class BookingLoops implements AutoCloseable {
+    static final int MAX_BATCH = 256;
+    // Longest a caller waits to queue a command, and then for its result
+    static final long TIMEOUT_SECONDS = 30;
+
+    private final Loop[] loops;
+    private volatile boolean closed;
+
+    private BookingLoops(int count, int capacity) {
+        loops = new Loop[count];
+        for (int i = 0; i < count; i++) {
+            loops[i] = new Loop(i, capacity);
+            loops[i].start();
+        }
+    }
+
+    // From -Dbooking.loops; null when the mode is off
+    static BookingLoops configured() {
+        int count = Integer.getInteger("booking.loops", 0);
+        if (count <= 0) return null;
+        return new BookingLoops(count, Math.max(16, Integer.getInteger("booking.loop.queue", 4096)));
+    }
+
+    // The loops to route a command through, or null to run it on the calling thread: when the mode is
+    // off, or when the caller is itself a loop, which must never wait on a queue
+    static BookingLoops route() {
+        BookingLoops loops = FlightTicketBookingSystem.bookingLoops;
+        return loops == null || Thread.currentThread() instanceof Loop ? null : loops;
+    }
+
+    BookingResult book(BookingRequest request) throws SQLException {
+        return submit(new Command(Command.BOOK, request.flightNumber, request, 0));
+    }
+
+    BookingResult bookSeat(BookingRequest request, int seatNumber) throws SQLException {
+        return submit(new Command(Command.SELECT_SEAT, request.flightNumber, request, seatNumber));
+    }
+
+    BookingResult cancel(int flightNumber, int bookingId) throws SQLException {
+        return submit(new Command(Command.CANCEL, flightNumber, null, bookingId));
+    }
+
+    // Refuses new commands, lets the loops finish what is queued, and fails whatever is left after
+    // TIMEOUT_SECONDS
+    @Override
+    public void close() {
+        closed = true;
+        for (Loop loop : loops) {
+            loop.stopping = true;
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        for (Loop loop : loops) {
+            try {
+                long millis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (millis > 0) loop.join(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        for (Loop loop : loops) {
+            loop.failPending();
+        }
+    }
+
+    // Queues a booking without waiting for it; a caller with many parties queues them all before waiting on
+    // any, so the flight's loop drains them together. The result fails if the booking could not be queued.
+    CompletableFuture<BookingResult> bookAsync(BookingRequest request) {
+        Command command = new Command(Command.BOOK, request.flightNumber, request, 0);
+        try {
+            enqueue(command);
+        } catch (SQLException e) {
+            command.result.completeExceptionally(e);
+        }
+        return command.result;
+    }
+
+    // Waits up to TIMEOUT_SECONDS for a result from bookAsync()
+    static BookingResult await(CompletableFuture<BookingResult> result) throws SQLException {
+        try {
+            return result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a booking loop", e);
+        } catch (TimeoutException e) {
+            // The command may still run later; the caller only knows it did not hear back
+            throw new SQLException("Timed out waiting for a booking loop", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) throw (SQLException) e.getCause();
+            throw new SQLException("Booking loop failed: " + e.getCause(), e.getCause());
+        }
+    }
+
+    private BookingResult submit(Command command) throws SQLException {
+        enqueue(command);
+        return await(command.result);
+    }
+
+    private void enqueue(Command command) throws SQLException {
+        if (closed) throw new SQLException("Booking loops are closed");
+        Loop loop = loops[Math.floorMod(command.flightNumber, loops.length)];
+        try {
+            if (!loop.queue.offer(command, TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new SQLException("Timed out queueing a command on " + loop.getName());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while queueing a command on " + loop.getName(), e);
+        }
+        // Queued after the loop had already run its last drain
+        if (closed && !loop.isAlive()) loop.failPending();
+    }
+
+    private static class Command {
+        static final int BOOK = 1;
+        static final int SELECT_SEAT = 2;
+        static final int CANCEL = 3;
+
+        final int type;
+        final int flightNumber;
+        final BookingRequest request;
+        // Seat number for SELECT_SEAT, booking id for CANCEL
+        final int target;
+        final CompletableFuture<BookingResult> result = new CompletableFuture<>();
+
+        Command(int type, int flightNumber, BookingRequest request, int target) {
+            this.type = type;
+            this.flightNumber = flightNumber;
+            this.request = request;
+            this.target = target;
+        }
+    }
+
+    private static class Loop extends Thread {
+        final BlockingQueue<Command> queue;
+        volatile boolean stopping;
+
+        Loop(int index, int capacity) {
+            super("booking-loop-" + index);
+            setDaemon(true);
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        @Override
+        public void run() {
+            List<Command> batch = new ArrayList<>(MAX_BATCH);
+            while (!stopping || !queue.isEmpty()) {
+                Command first;
+                try {
+                    first = queue.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                process(batch);
+                batch.clear();
+            }
+            failPending();
+        }
+
+        // Fails the commands still queued; they were never started
+        void failPending() {
+            List<Command> pending = new ArrayList<>();
+            queue.drainTo(pending);
+            for (Command command : pending) {
+                command.result.completeExceptionally(new SQLException("Booking loops are closed"));
+            }
+        }
+
+        private void process(List<Command> batch) {
+            Map<Integer, List<Command>> bookings = new LinkedHashMap<>();
+            for (Command command : batch) {
+                if (command.type == Command.BOOK) {
+                    bookings.computeIfAbsent(command.flightNumber, k -> new ArrayList<>()).add(command);
+                } else {
+                    runOne(command);
+                }
+            }
+            for (Map.Entry<Integer, List<Command>> flight : bookings.entrySet()) {
+                bookAll(flight.getKey(), flight.getValue());
+            }
+        }
+
+        private static void runOne(Command command) {
+            try {
+                command.result.complete(command.type == Command.CANCEL
+                        ? ReservationEngine.cancelBooking(command.target)
+                        : ReservationEngine.placeSeatBooking(command.flightNumber, command.target,
+                                command.request.passengerName, command.request.passengerEmail));
+            } catch (SQLException | RuntimeException e) {
+                command.result.completeExceptionally(e);
+            }
+        }
+
+        private static void bookAll(int flightNumber, List<Command> commands) {
+            List<BookingRequest> requests = new ArrayList<>(commands.size());
+            for (Command command : commands) {
+                requests.add(command.request);
+            }
+            try {
+                BookingResult[] results = ReservationEngine.bookBatch(flightNumber, requests);
+                for (int i = 0; i < results.length; i++) {
+                    commands.get(i).result.complete(results[i]);
+                }
+            } catch (SQLException | RuntimeException e) {
+                for (Command command : commands) {
+                    command.result.completeExceptionally(e);
+                }
+            }
+        }
+    }
+}
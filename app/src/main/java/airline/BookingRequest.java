@@ -0,0 +1,18 @@
+package airline;
+
+// One party to book on a flight; preference may be null
+class BookingRequest {
+    final int flightNumber;
+    final String passengerName;
+    final String passengerEmail;
+    final int seats;
+    final SeatType preference;
+
+    BookingRequest(int flightNumber, String passengerName, String passengerEmail, int seats, SeatType preference) {
+        this.flightNumber = flightNumber;
+        this.passengerName = passengerName;
+        this.passengerEmail = passengerEmail;
+        this.seats = seats;
+        this.preference = preference;
+    }
+}
@@ -0,0 +1,57 @@
+package airline;
+
+// Outcome of a reservation engine call
+class BookingResult {
+    enum Status {
+        BOOKED,
+        CANCELLED,
+        FLIGHT_NOT_FOUND,
+        FLIGHT_DEPARTED,
+        BOOKING_NOT_FOUND,
+        NOT_ENOUGH_SEATS,
+        INVALID_SEAT,
+        SEAT_TAKEN,
+        HELD,
+        HOLD_RELEASED,
+        HOLD_NOT_FOUND
+    }
+
+    final Status status;
+    final int bookingId;
+    final int flightNumber;
+    final int[] seats;
+    // Set for HELD and HOLD_RELEASED, otherwise 0
+    final long holdId;
+
+    private BookingResult(Status status, int bookingId, int flightNumber, int[] seats, long holdId) {
+        this.status = status;
+        this.bookingId = bookingId;
+        this.flightNumber = flightNumber;
+        this.seats = seats;
+        this.holdId = holdId;
+    }
+
+    static BookingResult of(Status status, int flightNumber) {
+        return new BookingResult(status, 0, flightNumber, new int[0], 0);
+    }
+
+    static BookingResult booked(int bookingId, int flightNumber, int[] seats) {
+        return new BookingResult(Status.BOOKED, bookingId, flightNumber, seats, 0);
+    }
+
+    static BookingResult cancelled(int bookingId, int flightNumber, int[] seats) {
+        return new BookingResult(Status.CANCELLED, bookingId, flightNumber, seats, 0);
+    }
+
+    static BookingResult held(long holdId, int flightNumber, int[] seats) {
+        return new BookingResult(Status.HELD, 0, flightNumber, seats, holdId);
+    }
+
+    static BookingResult holdReleased(long holdId, int flightNumber, int[] seats) {
+        return new BookingResult(Status.HOLD_RELEASED, 0, flightNumber, seats, holdId);
+    }
+
+    boolean isSuccess() {
+        return status == Status.BOOKED || status == Status.CANCELLED;
+    }
+}
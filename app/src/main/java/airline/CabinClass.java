@@ -0,0 +1,23 @@
+package airline;
+
+enum CabinClass {
+    FIRST('F', "First"),
+    BUSINESS('B', "Business"),
+    PREMIUM_ECONOMY('P', "Premium Economy"),
+    ECONOMY('E', "Economy");
+
+    final char code;
+    final String label;
+
+    CabinClass(char code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+
+    static CabinClass ofCode(char code) {
+        for (CabinClass c : values()) {
+            if (c.code == Character.toUpperCase(code)) return c;
+        }
+        throw new IllegalArgumentException("Unknown cabin class: " + code);
+    }
+}
@@ -0,0 +1,258 @@
+package airline;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Cluster mode, enabled by -Dcluster.nodes=host:port,host:port,... and -Dcluster.self naming this node's
+// entry. Every node serves the HTTP API on its own port against the same database. Flights are spread
+// over the live nodes by consistent hashing on FlightNumber (VIRTUAL_NODES points per node on an MD5 ring),
+// and HttpApi forwards a flight's seat and booking requests to its owner, so only the owner keeps the
+// flight's seat map. Nodes check each other with GET /cluster every -Dcluster.heartbeat.millis (default
+// 1000): a node joins the ring on its first answer and leaves it after MISSED_HEARTBEATS missed ones.
+// Only the flights on the arcs that changed hands move; the old owner drops their maps on its next
+// heartbeat and the new owner loads them from the database when first asked. While two nodes disagree
+// about an owner, the seat_assignments primary key still keeps a seat from being sold twice.
+// No owner is known until the first round of heartbeats has finished: ownerOf() throws until then, so a
+// node that has not heard from its peers yet does not take their flights.
+class Cluster implements AutoCloseable {
+    static final String FORWARDED_HEADER = "X-Cluster-Forwarded";
+    static final int VIRTUAL_NODES = 128;
+    static final int MISSED_HEARTBEATS = 3;
+
+    private static final Duration HEARTBEAT_TIMEOUT = Duration.ofMillis(500);
+    private static final Duration FORWARD_TIMEOUT = Duration.ofSeconds(30);
+
+    static class Node {
+        final String address;
+        final int index;
+        final URI base;
+        volatile boolean alive;
+        // Only touched by the heartbeat thread
+        int missed;
+
+        Node(String address, int index) {
+            this.address = address;
+            this.index = index;
+            this.base = URI.create("http://" + address);
+        }
+    }
+
+    private final Node[] nodes;
+    private final Node self;
+    private final SeatMapRegistry registry;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(HEARTBEAT_TIMEOUT)
+            .build();
+    private final ScheduledExecutorService heartbeat;
+    private volatile Ring ring;
+    // Set once the first round of heartbeats has built the ring
+    private volatile boolean ready;
+
+    private Cluster(Node[] nodes, Node self, SeatMapRegistry registry) {
+        this.nodes = nodes;
+        this.self = self;
+        this.registry = registry;
+        // Peers count as down until they answer, so a node starting alone serves every flight
+        self.alive = true;
+        this.ring = new Ring(liveNodes());
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cluster-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        long millis = Math.max(100, Long.getLong("cluster.heartbeat.millis", 1000));
+        heartbeat.scheduleWithFixedDelay(this::checkNodes, 0, millis, TimeUnit.MILLISECONDS);
+    }
+
+    // From -Dcluster.nodes and -Dcluster.self; null when cluster mode is off
+    static Cluster configured(SeatMapRegistry registry) {
+        String list = System.getProperty("cluster.nodes");
+        if (list == null || list.trim().isEmpty()) return null;
+        String selfAddress = System.getProperty("cluster.self");
+        if (selfAddress == null) throw new IllegalArgumentException("-Dcluster.self must name this node's entry in -Dcluster.nodes");
+
+        String[] addresses = list.split(",");
+        Node[] nodes = new Node[addresses.length];
+        Node self = null;
+        for (int i = 0; i < addresses.length; i++) {
+            nodes[i] = new Node(addresses[i].trim(), i);
+            if (nodes[i].address.equals(selfAddress.trim())) self = nodes[i];
+        }
+        if (self == null) throw new IllegalArgumentException(selfAddress + " is not in -Dcluster.nodes");
+
+        // Hold ids carry the index of the node holding the seats, so confirm and release can be routed
+        SeatHolds.partitionIds(nodes.length, self.index);
+        return new Cluster(nodes, self, registry);
+    }
+
+    // The live node that owns the flight; null when it is this node
+    Node ownerOf(int flightNumber) {
+        if (!ready) throw new IllegalStateException("Cluster membership is not known yet; try again shortly");
+        Node owner = ring.owner(flightNumber);
+        return owner == self ? null : owner;
+    }
+
+    // The node that created the hold; null when it is this node
+    Node holderOf(long holdId) {
+        Node holder = nodes[Math.floorMod(holdId, nodes.length)];
+        return holder == self ? null : holder;
+    }
+
+    // Sends the request to the node unchanged, marked so the node answers it itself
+    HttpResponse<byte[]> forward(Node node, String method, String pathAndQuery, byte[] body) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(node.base.resolve(pathAndQuery))
+                .timeout(FORWARD_TIMEOUT)
+                .header(FORWARDED_HEADER, self.address)
+                .header("Content-Type", "application/json; charset=utf-8")
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while forwarding to " + node.address, e);
+        }
+    }
+
+    // This node's view of the cluster, as served by GET /cluster
+    String describe() {
+        StringBuilder sb = new StringBuilder("{\"self\":").append(Json.quote(self.address)).append(",\"nodes\":[");
+        for (int i = 0; i < nodes.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"address\":").append(Json.quote(nodes[i].address))
+                    .append(",\"alive\":").append(nodes[i].alive).append('}');
+        }
+        return sb.append("]}").toString();
+    }
+
+    @Override
+    public void close() {
+        heartbeat.shutdownNow();
+    }
+
+    private void checkNodes() {
+        boolean changed = false;
+        for (Node node : nodes) {
+            if (node == self) continue;
+            boolean answered = ping(node);
+            if (answered) {
+                node.missed = 0;
+                if (!node.alive) {
+                    node.alive = true;
+                    changed = true;
+                    System.out.println("Cluster: " + node.address + " joined");
+                }
+            } else if (++node.missed >= MISSED_HEARTBEATS && node.alive) {
+                node.alive = false;
+                changed = true;
+                System.out.println("Cluster: " + node.address + " left");
+            }
+        }
+        if (changed) ring = new Ring(liveNodes());
+        ready = true;
+        dropForeignMaps();
+    }
+
+    private boolean ping(Node node) {
+        HttpRequest request = HttpRequest.newBuilder(node.base.resolve("/cluster")).timeout(HEARTBEAT_TIMEOUT).GET().build();
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Evicts the maps of flights another node now owns. A map pinned by an unfinished booking or a hold
+    // stays until a later heartbeat finds it unpinned.
+    private void dropForeignMaps() {
+        Ring current = ring;
+        for (int flightNumber : registry.residentFlights()) {
+            if (current.owner(flightNumber) == self) continue;
+            ReentrantLock lock = ReservationEngine.lockFor(flightNumber);
+            if (!lock.tryLock()) continue;
+            try {
+                SeatMap seatMap = registry.getIfLoaded(flightNumber);
+                if (seatMap != null && !seatMap.isPinned()) registry.remove(flightNumber);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private List<Node> liveNodes() {
+        List<Node> live = new ArrayList<>();
+        for (Node node : nodes) {
+            if (node.alive) live.add(node);
+        }
+        return live;
+    }
+
+    // Immutable hash ring: sorted points, each owned by the node at the same position
+    static class Ring {
+        private final int[] points;
+        private final Node[] owners;
+
+        Ring(List<Node> live) {
+            long[] entries = new long[live.size() * VIRTUAL_NODES];
+            int n = 0;
+            for (int i = 0; i < live.size(); i++) {
+                for (int v = 0; v < VIRTUAL_NODES; v++) {
+                    // Point in the high half, position in the node list in the low half, so sorting keeps them together
+                    entries[n++] = ((long) pointOf(live.get(i).address, v) << 32) | i;
+                }
+            }
+            Arrays.sort(entries);
+            points = new int[n];
+            owners = new Node[n];
+            for (int i = 0; i < n; i++) {
+                points[i] = (int) (entries[i] >> 32);
+                owners[i] = live.get((int) entries[i]);
+            }
+        }
+
+        // The first point at or after the flight's hash, wrapping around
+        Node owner(int flightNumber) {
+            int i = Arrays.binarySearch(points, hash(flightNumber));
+            if (i < 0) i = -i - 1;
+            return owners[i == points.length ? 0 : i];
+        }
+
+        private static int pointOf(String address, int virtualNode) {
+            try {
+                byte[] d = MessageDigest.getInstance("MD5").digest((address + "#" + virtualNode).getBytes(StandardCharsets.UTF_8));
+                return (d[0] & 0xFF) << 24 | (d[1] & 0xFF) << 16 | (d[2] & 0xFF) << 8 | (d[3] & 0xFF);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        // Murmur3 finalizer: neighbouring flight numbers land far apart on the ring
+        private static int hash(int flightNumber) {
+            int h = flightNumber;
+            h ^= h >>> 16;
+            h *= 0x85EBCA6B;
+            h ^= h >>> 13;
+            h *= 0xC2B2AE35;
+            h ^= h >>> 16;
+            return h;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package airline;
+
+import java.sql.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Fixed-size JDBC connection pool.
+// Connections are opened lazily up to maxSize; acquire() waits for a free one after that.
+// Use it with try-with-resources so the connection always goes back to the pool.
+class ConnectionPool implements AutoCloseable {
+    private static final long ACQUIRE_TIMEOUT_MS = 30_000;
+    private static final long VALIDATE_AFTER_IDLE_MS = 30_000;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final BlockingQueue<PooledConnection> idle;
+    private final AtomicInteger opened = new AtomicInteger();
+    private volatile boolean closed;
+
+    ConnectionPool(String url, String user, String password, int maxSize) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.idle = new ArrayBlockingQueue<>(maxSize);
+    }
+
+    // Default size: enough for a couple of concurrent sessions per core
+    static int defaultSize() {
+        return Integer.getInteger("db.pool.size", Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+    }
+
+    PooledConnection acquire() throws SQLException {
+        if (closed) throw new SQLException("Connection pool is closed");
+
+        PooledConnection pc = idle.poll();
+        if (pc == null) {
+            pc = openIfBelowMax();
+        }
+        if (pc == null) {
+            try {
+                pc = idle.poll(ACQUIRE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a database connection", e);
+            }
+            if (pc == null) throw new SQLException("Timed out waiting for a database connection");
+        }
+
+        if (pc.idleMillis() > VALIDATE_AFTER_IDLE_MS && !pc.connection.isValid(2)) {
+            discard(pc);
+            return acquire();
+        }
+        return pc;
+    }
+
+    void release(PooledConnection pc) {
+        if (closed || !idle.offer(pc)) {
+            discard(pc);
+        }
+    }
+
+    void discard(PooledConnection pc) {
+        opened.decrementAndGet();
+        pc.closeQuietly();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        PooledConnection pc;
+        while ((pc = idle.poll()) != null) {
+            discard(pc);
+        }
+    }
+
+    private PooledConnection openIfBelowMax() throws SQLException {
+        while (true) {
+            int n = opened.get();
+            if (n >= maxSize) return null;
+            if (opened.compareAndSet(n, n + 1)) break;
+        }
+        try {
+            return new PooledConnection(this, DriverManager.getConnection(url, user, password));
+        } catch (SQLException e) {
+            opened.decrementAndGet();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package airline;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR event for one JDBC round trip through a pooled prepared statement
+@Name("airline.DatabaseCall")
+@Label("Database Call")
+@Category("Airline")
+@Description("Execution of a prepared statement, up to its first result")
+class DatabaseCallEvent extends Event {
+    @Label("SQL")
+    String sql;
+
+    @Label("Method")
+    String method;
+
+    @Label("Failed")
+    boolean failed;
+}
@@ -0,0 +1,111 @@
+package airline;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+// Parsing and validation of the yyyy-MM-dd and HH:MM:SS strings typed into the menus and sent to the API.
+// The parsers walk the characters directly and allocate nothing; dates come back packed as yyyymmdd ints,
+// which order the same way the dates do. Stateless apart from the cached current date, so safe from any thread.
+final class DateTimeInput {
+    static final int INVALID = -1;
+
+    private static volatile Today today = new Today();
+
+    private DateTimeInput() {
+    }
+
+    // yyyy-MM-dd as yyyymmdd, or INVALID; rejects impossible dates such as 2023-02-29
+    static int parseDate(CharSequence s) {
+        if (s == null || s.length() != 10 || s.charAt(4) != '-' || s.charAt(7) != '-') return INVALID;
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) return INVALID;
+        return year * 10000 + month * 100 + day;
+    }
+
+    // H:M:S with one or two digits per field as seconds since midnight, or INVALID
+    static int parseTime(CharSequence s) {
+        if (s == null) return INVALID;
+        int length = s.length();
+        int seconds = 0;
+        int pos = 0;
+        for (int field = 0; field < 3; field++) {
+            int end = pos;
+            while (end < length && end - pos < 3 && s.charAt(end) != ':') end++;
+            if (end - pos < 1 || end - pos > 2) return INVALID;
+            int value = digits(s, pos, end - pos);
+            if (value < 0 || value > (field == 0 ? 23 : 59)) return INVALID;
+            seconds = seconds * 60 + value;
+            if (field < 2) {
+                if (end >= length || s.charAt(end) != ':') return INVALID;
+                pos = end + 1;
+            } else if (end != length) {
+                return INVALID;
+            }
+        }
+        return seconds;
+    }
+
+    static boolean isValidDate(CharSequence s) {
+        return parseDate(s) != INVALID;
+    }
+
+    static boolean isValidTime(CharSequence s) {
+        return parseTime(s) != INVALID;
+    }
+
+    // Today or later, in the system time zone
+    static boolean isTodayOrLater(CharSequence s) {
+        int date = parseDate(s);
+        return date != INVALID && date >= today();
+    }
+
+    // The parsed date, or null if the input is not a valid yyyy-MM-dd date
+    static LocalDate toLocalDate(CharSequence s) {
+        int date = parseDate(s);
+        return date == INVALID ? null : LocalDate.of(date / 10000, date / 100 % 100, date % 100);
+    }
+
+    // Today as yyyymmdd; recomputed only once the cached day has ended
+    static int today() {
+        Today current = today;
+        if (System.currentTimeMillis() >= current.endMillis) {
+            current = new Today();
+            today = current;
+        }
+        return current.date;
+    }
+
+    // Value of `count` decimal digits starting at `from`, or INVALID if any is not a digit
+    private static int digits(CharSequence s, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int d = s.charAt(i) - '0';
+            if (d < 0 || d > 9) return INVALID;
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2: return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4: case 6: case 9: case 11: return 30;
+            default: return 31;
+        }
+    }
+
+    // Current date and the instant it stops being current; replaced whole so readers never see a mix
+    private static final class Today {
+        final int date;
+        final long endMillis;
+
+        Today() {
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate now = LocalDate.now(zone);
+            date = now.getYear() * 10000 + now.getMonthValue() * 100 + now.getDayOfMonth();
+            endMillis = now.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package airline;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// In-process copy of the Flights table for the read paths.
+// Writers update it after their transaction commits (write-through); misses are read from the
+// database. Size is bounded: departed flights are evicted first, in LRU order, then upcoming ones.
+// The route index covers every upcoming flight regardless of the bound and follows the same writes.
+class FlightCache {
+    static final String SELECT_FLIGHT_SQL = "SELECT * FROM Flights WHERE FlightNumber = ?";
+    static final String SELECT_UPCOMING_FLIGHTS_SQL = "SELECT * FROM Flights WHERE FlightDate >= CURDATE() ORDER BY FlightDate";
+
+    final FlightIndex index = new FlightIndex();
+
+    private final int maxSize;
+    private final LinkedHashMap<Integer, FlightInfo> upcoming = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Integer, FlightInfo> departed = new LinkedHashMap<>(16, 0.75f, true);
+    private LocalDate sortedOn = LocalDate.now();
+    // Bumped by every write so a concurrent read-through cannot cache a row older than the write
+    private long writeStamp;
+
+    FlightCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    static int defaultSize() {
+        return Integer.getInteger("flight.cache.size", 10_000);
+    }
+
+    // Indexes all upcoming flights and caches them, soonest first, until the cache is full
+    void warm(ConnectionPool pool) throws SQLException {
+        try (PooledConnection con = pool.acquire();
+             ResultSet rs = con.prepare(SELECT_UPCOMING_FLIGHTS_SQL).executeQuery()) {
+            int loaded = 0;
+            while (rs.next()) {
+                FlightInfo flight = FlightInfo.from(rs);
+                if (loaded++ < maxSize) {
+                    put(flight);
+                } else {
+                    index.put(flight);
+                }
+            }
+        }
+    }
+
+    // Cached flight, read from the database on a miss; null if the flight does not exist
+    FlightInfo get(ConnectionPool pool, int flightNumber) throws SQLException {
+        long stamp;
+        synchronized (this) {
+            FlightInfo flight = lookup(flightNumber);
+            if (flight != null) return flight;
+            stamp = writeStamp;
+        }
+
+        FlightInfo flight;
+        try (PooledConnection con = pool.acquire()) {
+            PreparedStatement pstmt = con.prepare(SELECT_FLIGHT_SQL);
+            pstmt.setInt(1, flightNumber);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) return null;
+                flight = FlightInfo.from(rs);
+            }
+        }
+
+        synchronized (this) {
+            if (stamp == writeStamp) {
+                store(flight);
+            }
+        }
+        return flight;
+    }
+
+    synchronized void put(FlightInfo flight) {
+        writeStamp++;
+        store(flight);
+        index.put(flight);
+    }
+
+    synchronized void remove(int flightNumber) {
+        writeStamp++;
+        index.remove(flightNumber);
+        upcoming.remove(flightNumber);
+        departed.remove(flightNumber);
+    }
+
+    // Re-reads the flight after another process changed it; drops it if it no longer exists
+    void refresh(ConnectionPool pool, int flightNumber) throws SQLException {
+        FlightInfo flight;
+        try (PooledConnection con = pool.acquire()) {
+            PreparedStatement pstmt = con.prepare(SELECT_FLIGHT_SQL);
+            pstmt.setInt(1, flightNumber);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                flight = rs.next() ? FlightInfo.from(rs) : null;
+            }
+        }
+        if (flight != null) {
+            put(flight);
+        } else {
+            remove(flightNumber);
+        }
+    }
+
+    // Applies a committed change to AvailableSeats
+    synchronized void adjustAvailableSeats(int flightNumber, int delta) {
+        writeStamp++;
+        index.adjustAvailableSeats(flightNumber, delta);
+        FlightInfo flight = lookup(flightNumber);
+        if (flight != null) {
+            store(flight.withAvailableSeats(flight.availableSeats + delta));
+        }
+    }
+
+    synchronized int size() {
+        return upcoming.size() + departed.size();
+    }
+
+    private FlightInfo lookup(int flightNumber) {
+        FlightInfo flight = upcoming.get(flightNumber);
+        return flight != null ? flight : departed.get(flightNumber);
+    }
+
+    private void store(FlightInfo flight) {
+        LocalDate today = LocalDate.now();
+        upcoming.remove(flight.flightNumber);
+        departed.remove(flight.flightNumber);
+        if (flight.hasDeparted(today)) {
+            departed.put(flight.flightNumber, flight);
+        } else {
+            upcoming.put(flight.flightNumber, flight);
+        }
+        if (size() > maxSize) {
+            evictOne(today);
+        }
+    }
+
+    private void evictOne(LocalDate today) {
+        // Flights that departed since the last pass move over once per day
+        if (!today.equals(sortedOn)) {
+            Iterator<Map.Entry<Integer, FlightInfo>> it = upcoming.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Integer, FlightInfo> e = it.next();
+                if (e.getValue().hasDeparted(today)) {
+                    departed.put(e.getKey(), e.getValue());
+                    it.remove();
+                }
+            }
+            sortedOn = today;
+        }
+
+        LinkedHashMap<Integer, FlightInfo> victims = departed.isEmpty() ? upcoming : departed;
+        Iterator<Integer> eldest = victims.keySet().iterator();
+        eldest.next();
+        eldest.remove();
+    }
+}
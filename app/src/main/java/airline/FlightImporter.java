@@ -0,0 +1,235 @@
+package airline;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Bulk load of a flight schedule from a comma- or tab-separated file, one flight per line:
+//   Source, Destination, DepartureTime, ArrivalTime, FlightDate, Price [, Capacity [, LayoutCode]]
+// Capacity defaults to every seat of the layout and LayoutCode to the default layout. Blank lines,
+// lines starting with # and a header line starting with "Source" are skipped. Fields may be wrapped
+// in double quotes to hold the separator.
+// Lines are checked with the same rules as addFlight and written in chunks, each chunk one batched
+// INSERT in its own transaction. If a chunk fails it is rolled back and retried line by line so the
+// error lands on the line that caused it.
+class FlightImporter {
+    static final int CHUNK_SIZE = 1000;
+
+    // Outcome of one import; errors are "Line n: reason"
+    static class Report {
+        int imported;
+        final List<String> errors = new ArrayList<>();
+
+        void reject(int line, String reason) {
+            errors.add("Line " + line + ": " + reason);
+        }
+    }
+
+    // A checked line, ready to insert
+    private static class Row {
+        final int line;
+        final String source;
+        final String destination;
+        final String departureTime;
+        final String arrivalTime;
+        final String flightDate;
+        final double price;
+        final int capacity;
+        final String layoutCode;
+
+        Row(int line, String[] fields, double price, int capacity, String layoutCode) {
+            this.line = line;
+            this.source = fields[0];
+            this.destination = fields[1];
+            this.departureTime = fields[2];
+            this.arrivalTime = fields[3];
+            this.flightDate = fields[4];
+            this.price = price;
+            this.capacity = capacity;
+            this.layoutCode = layoutCode;
+        }
+
+        FlightInfo toFlight(int flightNumber) {
+            return new FlightInfo(flightNumber, source, destination, departureTime, arrivalTime,
+                    DateTimeInput.toLocalDate(flightDate), capacity, price, capacity, layoutCode);
+        }
+    }
+
+    // Reads the schedule to the end; only I/O errors and a lost database stop the import early
+    static Report importFlights(ConnectionPool pool, FlightCache cache, BufferedReader in) throws IOException, SQLException {
+        Report report = new Report();
+        List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+        int lineNumber = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+            if (lineNumber == 1 && trimmed.regionMatches(true, 0, "Source", 0, 6)) continue;
+
+            Row row = parse(lineNumber, line, report);
+            if (row == null) continue;
+            chunk.add(row);
+            if (chunk.size() == CHUNK_SIZE) {
+                write(pool, cache, chunk, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) write(pool, cache, chunk, report);
+        return report;
+    }
+
+    // The checked line, or null after recording why it was rejected
+    private static Row parse(int lineNumber, String line, Report report) {
+        String[] fields = fields(line);
+        if (fields.length < 6 || fields.length > 8) {
+            report.reject(lineNumber, "expected 6 to 8 fields, found " + fields.length);
+            return null;
+        }
+
+        if (fields[0].isEmpty() || fields[1].isEmpty()) {
+            report.reject(lineNumber, "source and destination are required");
+            return null;
+        }
+        if (!DateTimeInput.isValidTime(fields[2]) || !DateTimeInput.isValidTime(fields[3])) {
+            report.reject(lineNumber, "times must be HH:MM:SS");
+            return null;
+        }
+        if (!DateTimeInput.isValidDate(fields[4])) {
+            report.reject(lineNumber, "flight date must be YYYY-MM-DD");
+            return null;
+        }
+        if (!DateTimeInput.isTodayOrLater(fields[4])) {
+            report.reject(lineNumber, "flight date is in the past");
+            return null;
+        }
+
+        double price;
+        try {
+            price = Double.parseDouble(fields[5]);
+        } catch (NumberFormatException e) {
+            price = 0;
+        }
+        if (!(price > 0)) {
+            report.reject(lineNumber, "price must be a positive number");
+            return null;
+        }
+
+        String layoutCode = fields.length > 7 && !fields[7].isEmpty()
+                ? fields[7].toUpperCase(Locale.ROOT) : AircraftLayout.DEFAULT_CODE;
+        AircraftLayout layout = AircraftLayout.get(layoutCode);
+        if (layout == null) {
+            report.reject(lineNumber, "unknown layout " + layoutCode);
+            return null;
+        }
+
+        int capacity = layout.seatCount();
+        if (fields.length > 6 && !fields[6].isEmpty()) {
+            try {
+                capacity = Integer.parseInt(fields[6]);
+            } catch (NumberFormatException e) {
+                capacity = 0;
+            }
+            if (capacity < 1 || capacity > layout.seatCount()) {
+                report.reject(lineNumber, "capacity must be 1 to " + layout.seatCount() + " for " + layout.code);
+                return null;
+            }
+        }
+        return new Row(lineNumber, fields, price, capacity, layout.code);
+    }
+
+    // Fields of a tab-separated line, or of a comma-separated one if it has no tabs, trimmed.
+    // A field wrapped in double quotes may hold the separator, with "" standing for one quote.
+    static String[] fields(String line) {
+        char separator = line.indexOf('\t') >= 0 ? '\t' : ',';
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"' && field.toString().trim().isEmpty()) {
+                field.setLength(0);
+                quoted = true;
+            } else if (c == separator) {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields.toArray(new String[0]);
+    }
+
+    private static void write(ConnectionPool pool, FlightCache cache, List<Row> chunk, Report report) throws SQLException {
+        try (PooledConnection con = pool.acquire()) {
+            PreparedStatement pstmt = con.prepareReturningKeys(FlightTicketBookingSystem.INSERT_FLIGHT_SQL);
+            List<FlightInfo> added = new ArrayList<>(chunk.size());
+            try {
+                con.begin();
+                for (Row row : chunk) {
+                    bind(pstmt, row);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    for (Row row : chunk) {
+                        if (!keys.next()) throw new SQLException("Fewer generated keys than rows in the batch");
+                        added.add(row.toFlight(keys.getInt(1)));
+                    }
+                }
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                if (!con.connection.isValid(1)) throw e;
+                writeOneByOne(con, cache, chunk, report);
+                return;
+            }
+            for (FlightInfo flight : added) {
+                cache.put(flight);
+            }
+            report.imported += added.size();
+        }
+    }
+
+    // Fallback for a failed chunk: every line in its own statement so each error is attributed
+    private static void writeOneByOne(PooledConnection con, FlightCache cache, List<Row> chunk, Report report) throws SQLException {
+        PreparedStatement pstmt = con.prepareReturningKeys(FlightTicketBookingSystem.INSERT_FLIGHT_SQL);
+        for (Row row : chunk) {
+            try {
+                bind(pstmt, row);
+                pstmt.executeUpdate();
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    if (keys.next()) cache.put(row.toFlight(keys.getInt(1)));
+                }
+                report.imported++;
+            } catch (SQLException e) {
+                report.reject(row.line, e.getMessage());
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement pstmt, Row row) throws SQLException {
+        pstmt.setString(1, row.source);
+        pstmt.setString(2, row.destination);
+        pstmt.setString(3, row.departureTime);
+        pstmt.setString(4, row.arrivalTime);
+        pstmt.setString(5, row.flightDate);
+        pstmt.setInt(6, row.capacity);
+        pstmt.setDouble(7, row.price);
+        pstmt.setInt(8, row.capacity);
+        pstmt.setString(9, row.layoutCode);
+    }
+}
@@ -0,0 +1,138 @@
+package airline;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Searchable view of the flight schedule: a hash on the route, then a date-sorted map of that
+// route's flights. Searches never touch the database; FlightCache keeps the index in step with
+// every committed write. Flights are dropped from the index once they have departed.
+class FlightIndex {
+    private static final Comparator<FlightInfo> DEPARTURE_ORDER =
+            Comparator.comparing((FlightInfo f) -> String.valueOf(f.departureTime)).thenComparingInt(f -> f.flightNumber);
+
+    private final Map<String, TreeMap<LocalDate, List<FlightInfo>>> routes = new HashMap<>();
+    private final Map<Integer, FlightInfo> flights = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile LocalDate prunedOn = LocalDate.now();
+
+    void put(FlightInfo flight) {
+        lock.writeLock().lock();
+        try {
+            unlink(flights.remove(flight.flightNumber));
+            if (flight.hasDeparted(LocalDate.now())) return;
+
+            flights.put(flight.flightNumber, flight);
+            List<FlightInfo> day = routes.computeIfAbsent(routeKey(flight.source, flight.destination), k -> new TreeMap<>())
+                    .computeIfAbsent(flight.flightDate, k -> new ArrayList<>());
+            int at = Collections.binarySearch(day, flight, DEPARTURE_ORDER);
+            day.add(at < 0 ? -at - 1 : at, flight);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(int flightNumber) {
+        lock.writeLock().lock();
+        try {
+            unlink(flights.remove(flightNumber));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void adjustAvailableSeats(int flightNumber, int delta) {
+        lock.writeLock().lock();
+        try {
+            FlightInfo flight = flights.get(flightNumber);
+            if (flight == null) return;
+
+            FlightInfo updated = flight.withAvailableSeats(flight.availableSeats + delta);
+            flights.put(flightNumber, updated);
+            List<FlightInfo> day = routes.get(routeKey(flight.source, flight.destination)).get(flight.flightDate);
+            day.set(day.indexOf(flight), updated);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return flights.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Flights on the route between fromDate and toDate (inclusive; null means open-ended) with at least
+    // minSeats seats and a price of at most maxPrice, ordered by date and departure time.
+    // Pages are numbered from 1.
+    FlightPage search(String source, String destination, LocalDate fromDate, LocalDate toDate,
+                      int minSeats, double maxPrice, int page, int pageSize) {
+        if (page < 1 || pageSize < 1) {
+            throw new IllegalArgumentException("page and pageSize must be positive");
+        }
+        LocalDate today = LocalDate.now();
+        if (!today.equals(prunedOn)) pruneDeparted(today);
+
+        LocalDate from = fromDate == null || fromDate.isBefore(today) ? today : fromDate;
+        List<FlightInfo> results = new ArrayList<>(pageSize);
+        long skip = (long) (page - 1) * pageSize;
+        int matches = 0;
+
+        lock.readLock().lock();
+        try {
+            TreeMap<LocalDate, List<FlightInfo>> dates = routes.get(routeKey(source, destination));
+            if (dates != null && (toDate == null || !toDate.isBefore(from))) {
+                SortedMap<LocalDate, List<FlightInfo>> range = toDate == null ? dates.tailMap(from) : dates.subMap(from, true, toDate, true);
+                for (List<FlightInfo> day : range.values()) {
+                    for (FlightInfo flight : day) {
+                        if (flight.availableSeats < minSeats || flight.price > maxPrice) continue;
+                        if (matches >= skip && results.size() < pageSize) results.add(flight);
+                        matches++;
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new FlightPage(results, page, pageSize, matches);
+    }
+
+    private void pruneDeparted(LocalDate today) {
+        lock.writeLock().lock();
+        try {
+            Iterator<FlightInfo> it = flights.values().iterator();
+            while (it.hasNext()) {
+                FlightInfo flight = it.next();
+                if (flight.hasDeparted(today)) {
+                    it.remove();
+                    unlink(flight);
+                }
+            }
+            prunedOn = today;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Removes the flight from its route's date map; the caller holds the write lock
+    private void unlink(FlightInfo flight) {
+        if (flight == null) return;
+        String key = routeKey(flight.source, flight.destination);
+        TreeMap<LocalDate, List<FlightInfo>> dates = routes.get(key);
+        List<FlightInfo> day = dates.get(flight.flightDate);
+        day.remove(flight);
+        if (day.isEmpty()) {
+            dates.remove(flight.flightDate);
+            if (dates.isEmpty()) routes.remove(key);
+        }
+    }
+
+    // Routes match case-insensitively, like the default MySQL collation
+    private static String routeKey(String source, String destination) {
+        return String.valueOf(source).trim().toLowerCase(Locale.ROOT) + '\u0000'
+                + String.valueOf(destination).trim().toLowerCase(Locale.ROOT);
+    }
+}
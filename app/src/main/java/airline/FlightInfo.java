@@ -0,0 +1,59 @@
+package airline;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+// Immutable copy of one Flights row
+class FlightInfo {
+    final int flightNumber;
+    final String source;
+    final String destination;
+    final String departureTime;
+    final String arrivalTime;
+    final LocalDate flightDate;
+    // Seats left to sell
+    final int availableSeats;
+    final double price;
+    // Seats on the aircraft, sold or not
+    final int capacity;
+    final String layoutCode;
+
+    FlightInfo(int flightNumber, String source, String destination, String departureTime, String arrivalTime,
+               LocalDate flightDate, int availableSeats, double price, int capacity, String layoutCode) {
+        this.flightNumber = flightNumber;
+        this.source = source;
+        this.destination = destination;
+        this.departureTime = departureTime;
+        this.arrivalTime = arrivalTime;
+        this.flightDate = flightDate;
+        this.availableSeats = availableSeats;
+        this.price = price;
+        this.capacity = capacity;
+        this.layoutCode = layoutCode;
+    }
+
+    static FlightInfo from(ResultSet rs) throws SQLException {
+        Date flightDate = rs.getDate("FlightDate");
+        return new FlightInfo(
+                rs.getInt("FlightNumber"),
+                rs.getString("Source"),
+                rs.getString("Destination"),
+                rs.getString("DepartureTime"),
+                rs.getString("ArrivalTime"),
+                flightDate == null ? LocalDate.MIN : flightDate.toLocalDate(),
+                rs.getInt("AvailableSeats"),
+                rs.getDouble("Price"),
+                rs.getInt("Capacity"),
+                rs.getString("LayoutCode"));
+    }
+
+    FlightInfo withAvailableSeats(int seats) {
+        return new FlightInfo(flightNumber, source, destination, departureTime, arrivalTime, flightDate, seats, price, capacity, layoutCode);
+    }
+
+    boolean hasDeparted(LocalDate today) {
+        return flightDate.isBefore(today);
+    }
+}
@@ -0,0 +1,22 @@
+package airline;
+
+import java.util.List;
+
+// One page of flight search results
+class FlightPage {
+    final List<FlightInfo> flights;
+    final int page;
+    final int pageSize;
+    final int totalMatches;
+
+    FlightPage(List<FlightInfo> flights, int page, int pageSize, int totalMatches) {
+        this.flights = flights;
+        this.page = page;
+        this.pageSize = pageSize;
+        this.totalMatches = totalMatches;
+    }
+
+    boolean hasNext() {
+        return (long) page * pageSize < totalMatches;
+    }
+}
@@ -0,0 +1,1269 @@
+package airline;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.time.LocalDate;
+
+class FlightTicketBookingSystem {
+    static final String INSERT_FLIGHT_SQL = "INSERT INTO Flights (Source, Destination, DepartureTime, ArrivalTime, FlightDate, AvailableSeats, Price, Capacity, LayoutCode) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    // A capacity change moves AvailableSeats by the same amount; refused if seats already sold would not fit
+    static final String UPDATE_FLIGHT_SQL = "UPDATE Flights SET Source = ?, Destination = ?, DepartureTime = ?, ArrivalTime = ?, FlightDate = ?, " +
+            "AvailableSeats = AvailableSeats + ? - Capacity, Capacity = ?, Price = ? WHERE FlightNumber = ? AND AvailableSeats + ? - Capacity >= 0";
+    static final String DELETE_FLIGHT_SEATS_SQL = "DELETE FROM seat_assignments WHERE FlightNumber = ?";
+    static final String DELETE_FLIGHT_BOOKINGS_SQL = "DELETE FROM bookings WHERE FlightNumber = ?";
+    static final String DELETE_FLIGHT_SQL = "DELETE FROM Flights WHERE FlightNumber = ?";
+    static final String SELECT_BOOKING_SEATS_SQL = "SELECT SeatNumber FROM seat_assignments WHERE BookingID = ?";
+    static final String RENAME_BOOKING_SEATS_SQL = "UPDATE seat_assignments SET PassengerName = ? WHERE BookingID = ?";
+    static final String SELECT_BOOKING_SQL = "SELECT FlightNumber, SeatsBooked, PassengerName FROM bookings WHERE BookingID = ?";
+    static final String SELECT_BOOKING_DETAILS_SQL = "SELECT * FROM bookings WHERE BookingID = ?";
+    static final String UPDATE_BOOKING_SQL = "UPDATE bookings SET PassengerName = ?, PassengerEmail = ?, SeatsBooked = ? WHERE BookingID = ?";
+    static final String ADJUST_SEATS_SQL = "UPDATE Flights SET AvailableSeats = AvailableSeats + ? - ? WHERE FlightNumber = ?";
+    static final String UPDATE_SPECIAL_REQUESTS_SQL = "UPDATE bookings SET SpecialRequests = ? WHERE BookingID = ?";
+    static final String SELECT_SPECIAL_REQUESTS_SQL = "SELECT SpecialRequests FROM bookings WHERE BookingID = ?";
+
+    static final int SEARCH_PAGE_SIZE = 10;
+
+    static ConnectionPool pool;
+    static FlightCache flightCache = new FlightCache(FlightCache.defaultSize());
+    static Scanner sc = new Scanner(System.in);
+
+    // Seat map per flight, loaded on first use; a flight's map is only touched under ReservationEngine.lockFor(flightNumber)
+    static SeatMapRegistry flightSeatTrees;
+
+    // JSON API, started when -Dhttp.port is set
+    static HttpApi httpApi;
+
+    // Write-behind booking mode, enabled when -Dbooking.journal is set; null otherwise
+    static WriteBehindQueue writeBehind;
+
+    // Seat map snapshots, enabled when -Dseatmap.snapshot is set; null otherwise
+    static SeatMapSnapshot seatMapSnapshot;
+
+    // Per-flight booking loops, enabled when -Dbooking.loops is set; null otherwise
+    static BookingLoops bookingLoops;
+
+    // Applies other instances' seat changes, unless -Dseat.changes.poll.millis=0 or write-behind is on
+    static SeatChangeFeed seatChangeFeed;
+    static SeatChangePruner seatChangePruner;
+
+    // Consistent-hash partitioning of flights over several nodes, enabled by -Dcluster.nodes; null otherwise
+    static Cluster cluster;
+
+    public static void main(String[] args) throws Exception {
+        String dburl = System.getProperty("db.url", "jdbc:mysql://localhost:3306/heti?rewriteBatchedStatements=true&useCursorFetch=true");
+        String dbuser = System.getProperty("db.user", "root");
+        String dbpass = System.getProperty("db.password", "");
+
+        pool = new ConnectionPool(dburl, dbuser, dbpass, ConnectionPool.defaultSize());
+        flightSeatTrees = new SeatMapRegistry(pool, SeatMapRegistry.defaultBudgetBytes());
+        try {
+            SchemaMigrations.migrate(pool);
+            AircraftLayout.loadAll(pool);
+
+            // Replays the journal, so it must come before anything reads bookings or seats
+            String journal = System.getProperty("booking.journal");
+            if (journal != null) {
+                writeBehind = WriteBehindQueue.open(pool, Paths.get(journal));
+            }
+        } catch (SQLException e) {
+            System.out.println("Database connection error: " + e.getMessage());
+            pool.close();
+            return;
+        } catch (IOException e) {
+            System.out.println("Error opening booking journal: " + e.getMessage());
+            pool.close();
+            return;
+        }
+
+        try {
+            // Write-behind runs as the only writer, so there is nobody to follow
+            if (writeBehind == null) {
+                seatChangeFeed = SeatChangeFeed.configured(pool, flightCache, flightSeatTrees);
+            }
+            seatChangePruner = SeatChangePruner.start(pool);
+            flightCache.warm(pool);
+
+            // Seat maps load on demand; a snapshot or preloading upcoming flights fills them up front
+            int restored = -1;
+            seatMapSnapshot = SeatMapSnapshot.configured(pool, flightCache, flightSeatTrees);
+            if (seatMapSnapshot != null) {
+                try {
+                    restored = seatMapSnapshot.restore();
+                    if (restored >= 0) System.out.println("Restored " + restored + " seat maps from snapshot");
+                } catch (IOException e) {
+                    System.out.println("Error reading seat map snapshot: " + e.getMessage());
+                }
+                seatMapSnapshot.startPeriodic();
+            }
+            if (restored < 0 && Boolean.getBoolean("seatmap.preload")) {
+                loadSeatAssignments();
+            }
+
+            if (seatChangeFeed != null) {
+                seatChangeFeed.start();
+            }
+            bookingLoops = BookingLoops.configured();
+
+            try {
+                cluster = Cluster.configured(flightSeatTrees);
+            } catch (IllegalArgumentException e) {
+                System.out.println("Cluster configuration error: " + e.getMessage());
+            }
+            if (cluster != null && writeBehind != null) {
+                System.out.println("Cluster mode cannot be combined with -Dbooking.journal; running as a single node");
+                cluster.close();
+                cluster = null;
+            }
+
+            Integer httpPort = Integer.getInteger("http.port");
+            if (httpPort != null) {
+                httpApi = HttpApi.start(httpPort);
+                System.out.println("HTTP API listening on port " + httpApi.port());
+
+                // Headless node: serve the API only, until the process is stopped
+                if (Boolean.getBoolean("http.only")) {
+                    Runtime.getRuntime().addShutdownHook(new Thread(FlightTicketBookingSystem::shutdown));
+                    Thread.currentThread().join();
+                }
+            }
+
+            while (true) {
+                System.out.println("\n--- Airline Reservation System ---");
+                System.out.println("1. Admin Login");
+                System.out.println("2. Passenger Login");
+                System.out.println("3. Exit");
+                System.out.print("Enter your choice: ");
+                int a = -1;
+                try {
+                    a = sc.nextInt();
+                } catch (InputMismatchException e) {
+                    System.out.println("Invalid input! Please enter a number.");
+                    sc.nextLine();
+                    continue;
+                }
+                sc.nextLine();
+                switch (a) {
+                    case 1:
+                        if (adminLogin(sc)) {
+                            adminMenu(sc);
+                        }
+                        break;
+
+                    case 2:
+                        if (passengerLogin(sc)) {
+                            passengerMenu(sc);
+                        }
+                        break;
+
+                    case 3:
+                        shutdown();
+                        System.out.println("🙏 -- Thank you -- 🙏");
+                        return;
+
+                    default:
+                        System.out.println("Invalid choice. Please try again ");
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println("Database connection error: " + e.getMessage());
+            shutdown();
+        }
+    }
+
+    static void shutdown() {
+        if (httpApi != null) {
+            httpApi.stop();
+        }
+        if (cluster != null) {
+            cluster.close();
+        }
+        if (seatChangeFeed != null) {
+            seatChangeFeed.close();
+        }
+        if (seatChangePruner != null) {
+            seatChangePruner.close();
+        }
+        if (bookingLoops != null) {
+            bookingLoops.close();
+        }
+        if (writeBehind != null) {
+            writeBehind.close();
+        }
+        // After the write-behind queue has drained, so no map is left pinned by an unwritten booking
+        if (seatMapSnapshot != null) {
+            try {
+                seatMapSnapshot.close();
+            } catch (IOException | SQLException e) {
+                System.out.println("Error writing seat map snapshot: " + e.getMessage());
+            }
+        }
+        pool.close();
+    }
+
+    // In write-behind mode, waits for queued booking changes to reach the tables before a menu reads or
+    // changes them directly; false, after telling the user, if they did not get there in time
+    static boolean bookingWritesSettled() {
+        if (writeBehind == null) return true;
+        try {
+            writeBehind.awaitWritten();
+            return true;
+        } catch (SQLException e) {
+            System.out.println("Error: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // In cluster mode, whether this node serves the flight; false, after telling the user which node does,
+    // if it is another one or no owner is known yet
+    static boolean servedHere(int flightNumber) {
+        String refusal = refusalFor(flightNumber);
+        if (refusal == null) return true;
+        System.out.println(refusal);
+        return false;
+    }
+
+    // Why this node must not change the flight's seats, or null if it may
+    static String refusalFor(int flightNumber) {
+        if (cluster == null) return null;
+        try {
+            Cluster.Node owner = cluster.ownerOf(flightNumber);
+            if (owner == null) return null;
+            return "Flight " + flightNumber + " is served by node " + owner.address + "; use that node.";
+        } catch (IllegalStateException e) {
+            return "Error: " + e.getMessage();
+        }
+    }
+
+    // servedHere() for the booking's flight; true if there is no such booking, which the caller reports
+    static boolean bookingServedHere(int bookingId) throws SQLException {
+        if (cluster == null) return true;
+        Integer flightNumber = ReservationEngine.flightOfBooking(bookingId);
+        return flightNumber == null || servedHere(flightNumber);
+    }
+
+    // Utility methods for date and time validation; see DateTimeInput
+    static boolean isValidTime(String time) {
+        return DateTimeInput.isValidTime(time);
+    }
+
+    static boolean isValidDate(String date) {
+        return DateTimeInput.isValidDate(date);
+    }
+
+    static boolean isFutureDate(String date) {
+        return DateTimeInput.isTodayOrLater(date);
+    }
+
+    // Load seat assignments of upcoming flights from database into seat maps
+    static void loadSeatAssignments() throws SQLException {
+        SeatAssignmentLoader.load(pool, flightSeatTrees);
+    }
+
+    // Buffered console output for long listings; flush it, never close it
+    static PrintWriter consoleWriter() {
+        return new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16), false);
+    }
+
+    // Seat label, type and cabin from the layout's precomputed table, e.g. "12A Window, Economy, exit row"
+    static String describeSeat(AircraftLayout layout, int seatNumber) {
+        String description = layout.seatLabel(seatNumber) + " " + layout.seatType(seatNumber).label + ", "
+                + layout.cabinClass(seatNumber).label;
+        return layout.isExitRow(seatNumber) ? description + ", exit row" : description;
+    }
+
+    // Layout of the flight; the default layout if the flight does not exist
+    static AircraftLayout layoutOf(int flightNumber) throws SQLException {
+        FlightInfo flight = flightCache.get(pool, flightNumber);
+        return flight == null ? AircraftLayout.get(AircraftLayout.DEFAULT_CODE) : AircraftLayout.of(flight);
+    }
+
+    // ---------------- LOGIN METHODS ----------------
+    static boolean adminLogin(Scanner sc) {
+        System.out.print("Enter Admin Username: ");
+        String user = sc.nextLine();
+        System.out.print("Enter Admin Password: ");
+        String pass = sc.nextLine();
+
+        if (user.equals("Airline") && pass.equals("A123")) {
+            System.out.println(" Admin login successful ");
+            return true;
+        } else {
+            System.out.println(" Invalid Admin ");
+            return false;
+        }
+    }
+
+    static boolean passengerLogin(Scanner sc) {
+        System.out.print("Enter Passenger Name: ");
+        String name = sc.nextLine();
+        System.out.print("Enter Passenger Email: ");
+        String email = sc.nextLine();
+
+        if (!name.isEmpty() && email.contains("@")) {
+            System.out.println(" Passenger login successful ");
+            return true;
+        } else {
+            System.out.println(" Invalid Passenger details ");
+            return false;
+        }
+    }
+
+    // ---------------- ADMIN MENU ----------------
+    static void adminMenu(Scanner sc) throws Exception {
+        while (true) {
+            System.out.println("\n--- Admin Menu ---");
+            System.out.println("1. Add Flight");
+            System.out.println("2. Update Flight");
+            System.out.println("3. Delete Flight");
+            System.out.println("4. View All Flights");
+            System.out.println("5. View Seat Assignments for a Flight");
+            System.out.println("6. Import Flights from File");
+            System.out.println("7. Book Manifest from File");
+            System.out.println("8. View Metrics");
+            System.out.println("9. Exit..");
+            System.out.print("Enter choice: ");
+            int choice = -1;
+            try {
+                choice = sc.nextInt();
+            } catch (InputMismatchException e) {
+                System.out.println("Invalid input! Please enter a number.");
+                sc.nextLine();
+                continue;
+            }
+            sc.nextLine();
+
+            switch (choice) {
+                case 1:
+                    addFlight(sc);
+                    break;
+                case 2:
+                    updateFlight(sc);
+                    break;
+                case 3:
+                    deleteFlight(sc);
+                    break;
+                case 4:
+                    viewAllFlights();
+                    break;
+                case 5:
+                    viewFlightSeatAssignments(sc);
+                    break;
+                case 6:
+                    importFlights(sc);
+                    break;
+                case 7:
+                    bookManifest(sc);
+                    break;
+                case 8:
+                    viewMetrics();
+                    break;
+                case 9:
+                    return;
+                default:
+                    System.out.println("Invalid choice!");
+            }
+        }
+    }
+
+    // ---------------- PASSENGER MENU ----------------
+    static void passengerMenu(Scanner sc) throws Exception {
+        while (true) {
+            System.out.println("\n--- Passenger Menu ---");
+            System.out.println("1. Book Ticket");
+            System.out.println("2. Cancel Booking");
+            System.out.println("3. Update Booking");
+            System.out.println("4. View Booking Details");
+            System.out.println("5. Add Special Requests");
+            System.out.println("6. View Special Requests");
+            System.out.println("7. View All Flights");
+            System.out.println("8. Select Specific Seat");
+            System.out.println("9. View Available Seats");
+            System.out.println("10. Search Flights");
+            System.out.println("11. Exit..");
+            System.out.print("Enter choice: ");
+            int choice = -1;
+            try {
+                choice = sc.nextInt();
+            } catch (InputMismatchException e) {
+                System.out.println("Invalid input! Please enter a number.");
+                sc.nextLine();
+                continue;
+            }
+            sc.nextLine();
+
+            switch (choice) {
+                case 1:
+                    bookTicket(sc);
+                    break;
+                case 2:
+                    cancelBooking(sc);
+                    break;
+                case 3:
+                    updateBooking(sc);
+                    break;
+                case 4:
+                    viewBookingDetails(sc);
+                    break;
+                case 5:
+                    addSpecialRequests(sc);
+                    break;
+                case 6:
+                    viewSpecialRequests(sc);
+                    break;
+                case 7:
+                    viewAllFlights();
+                    break;
+                case 8:
+                    selectSpecificSeat(sc);
+                    break;
+                case 9:
+                    viewAvailableSeats(sc);
+                    break;
+                case 10:
+                    searchFlights(sc);
+                    break;
+                case 11:
+                    return;
+                default:
+                    System.out.println("Invalid choice!");
+            }
+        }
+    }
+
+    // ---------------- FLIGHT METHODS ----------------
+    static void addFlight(Scanner sc) throws SQLException {
+        System.out.print("Enter Source: ");
+        String source = sc.nextLine();
+        System.out.print("Enter Destination: ");
+        String destination = sc.nextLine();
+
+        String departureTime;
+        while (true) {
+            System.out.print("Enter Departure Time (HH:MM:SS): ");
+            departureTime = sc.nextLine();
+            if (isValidTime(departureTime)) break;
+            System.out.println("Invalid time format! Use HH:MM:SS (e.g., 14:30:00)");
+        }
+
+        String arrivalTime;
+        while (true) {
+            System.out.print("Enter Arrival Time (HH:MM:SS): ");
+            arrivalTime = sc.nextLine();
+            if (isValidTime(arrivalTime)) break;
+            System.out.println("Invalid time format! Use HH:MM:SS (e.g., 16:45:00)");
+        }
+
+        String flightDate;
+        while (true) {
+            System.out.print("Enter Flight Date (YYYY-MM-DD): ");
+            flightDate = sc.nextLine();
+            if (isValidDate(flightDate) && isFutureDate(flightDate)) break;
+            System.out.println("Invalid date! Use YYYY-MM-DD format and future date");
+        }
+
+        AircraftLayout layout = readLayout(sc);
+        int capacity = readCapacity(sc, layout, "Enter Capacity (blank for all " + layout.seatCount() + " seats): ");
+
+        double price = 0;
+        while (true) {
+            try {
+                System.out.print("Enter Flight Price: ");
+                price = sc.nextDouble();
+                if (price > 0) break;
+                System.out.println("Enter positive price");
+            } catch (InputMismatchException e) {
+                System.out.println("Invalid input! Enter a number");
+                sc.nextLine();
+            }
+        }
+        sc.nextLine();
+
+        try (PooledConnection con = pool.acquire()) {
+            PreparedStatement pstmt = con.prepareReturningKeys(INSERT_FLIGHT_SQL);
+            pstmt.setString(1, source);
+            pstmt.setString(2, destination);
+            pstmt.setString(3, departureTime);
+            pstmt.setString(4, arrivalTime);
+            pstmt.setString(5, flightDate);
+            pstmt.setInt(6, capacity);
+            pstmt.setDouble(7, price);
+            pstmt.setInt(8, capacity);
+            pstmt.setString(9, layout.code);
+            pstmt.executeUpdate();
+
+            try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                if (rs.next()) {
+                    int flightNumber = rs.getInt(1);
+                    flightSeatTrees.put(flightNumber, new SeatMap(capacity));
+                    flightCache.put(new FlightInfo(flightNumber, source, destination, departureTime, arrivalTime,
+                            DateTimeInput.toLocalDate(flightDate), capacity, price, capacity, layout.code));
+                }
+            }
+            System.out.println("Flight added successfully.");
+        } catch (SQLException e) {
+            System.out.println("Error adding flight: " + e.getMessage());
+        }
+    }
+
+    static void importFlights(Scanner sc) {
+        System.out.println("One flight per line, comma or tab separated:");
+        System.out.println("  Source, Destination, DepartureTime, ArrivalTime, FlightDate, Price [, Capacity [, LayoutCode]]");
+        System.out.print("Enter file path: ");
+        String path = sc.nextLine().trim();
+
+        long start = System.nanoTime();
+        try (BufferedReader in = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            FlightImporter.Report report = FlightImporter.importFlights(pool, flightCache, in);
+            for (String error : report.errors) {
+                System.out.println(error);
+            }
+            System.out.println("Imported " + report.imported + " flights, rejected " + report.errors.size()
+                    + " lines in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+        } catch (IOException | InvalidPathException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+        } catch (SQLException e) {
+            System.out.println("Error importing flights: " + e.getMessage());
+        }
+    }
+
+    static void bookManifest(Scanner sc) {
+        System.out.println("One party per line, comma or tab separated:");
+        System.out.println("  FlightNumber, PassengerName, PassengerEmail, Seats [, SeatPreference]");
+        System.out.print("Enter manifest path: ");
+        String path = sc.nextLine().trim();
+        System.out.print("Enter results path (blank for " + path + ".results.csv): ");
+        String resultsPath = sc.nextLine().trim();
+        if (resultsPath.isEmpty()) resultsPath = path + ".results.csv";
+
+        long start = System.nanoTime();
+        try (BufferedReader in = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8);
+             PrintWriter results = new PrintWriter(Files.newBufferedWriter(Paths.get(resultsPath), StandardCharsets.UTF_8))) {
+            ManifestBooker.Summary summary = ManifestBooker.book(in, results);
+            System.out.println("Booked " + summary.booked + " parties, " + summary.failed + " not booked, in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms. Results written to " + resultsPath);
+        } catch (IOException | InvalidPathException e) {
+            System.out.println("Error reading manifest: " + e.getMessage());
+        }
+    }
+
+    // Same text as GET /metrics
+    static void viewMetrics() {
+        Metrics.writePrometheus(consoleWriter(), flightSeatTrees);
+    }
+
+    static AircraftLayout readLayout(Scanner sc) {
+        System.out.println("Aircraft layouts:");
+        for (AircraftLayout layout : AircraftLayout.all()) {
+            System.out.println("  " + layout.code + " - " + layout.description + " (" + layout.seatCount() + " seats)");
+        }
+        while (true) {
+            System.out.print("Enter Aircraft Layout (blank for " + AircraftLayout.DEFAULT_CODE + "): ");
+            String code = sc.nextLine().trim().toUpperCase(Locale.ROOT);
+            AircraftLayout layout = AircraftLayout.get(code.isEmpty() ? AircraftLayout.DEFAULT_CODE : code);
+            if (layout != null) return layout;
+            System.out.println("Unknown layout.");
+        }
+    }
+
+    static int readCapacity(Scanner sc, AircraftLayout layout, String prompt) {
+        while (true) {
+            System.out.print(prompt);
+            String line = sc.nextLine().trim();
+            if (line.isEmpty()) return layout.seatCount();
+            try {
+                int capacity = Integer.parseInt(line);
+                if (capacity > 0 && capacity <= layout.seatCount()) return capacity;
+            } catch (NumberFormatException e) {
+                // fall through to the message
+            }
+            System.out.println("Enter a number from 1 to " + layout.seatCount());
+        }
+    }
+
+    static void updateFlight(Scanner sc) throws SQLException {
+        System.out.print("Enter Flight Number to update: ");
+        int flightNumber = sc.nextInt();
+        sc.nextLine();
+
+        System.out.print("Enter new Source: ");
+        String source = sc.nextLine();
+        System.out.print("Enter new Destination: ");
+        String destination = sc.nextLine();
+
+        String departureTime;
+        while (true) {
+            System.out.print("Enter new Departure Time (HH:MM:SS): ");
+            departureTime = sc.nextLine();
+            if (isValidTime(departureTime)) break;
+            System.out.println("Invalid time format! Use HH:MM:SS");
+        }
+
+        String arrivalTime;
+        while (true) {
+            System.out.print("Enter new Arrival Time (HH:MM:SS): ");
+            arrivalTime = sc.nextLine();
+            if (isValidTime(arrivalTime)) break;
+            System.out.println("Invalid time format! Use HH:MM:SS");
+        }
+
+        String flightDate;
+        while (true) {
+            System.out.print("Enter new Flight Date (YYYY-MM-DD): ");
+            flightDate = sc.nextLine();
+            if (isValidDate(flightDate) && isFutureDate(flightDate)) break;
+            System.out.println("Invalid date! Use YYYY-MM-DD format and future date");
+        }
+
+        AircraftLayout layout = layoutOf(flightNumber);
+        int capacity = readCapacity(sc, layout, "Enter new Capacity (" + layout.code + ", up to " + layout.seatCount() + " seats): ");
+
+        double price = 0;
+        while (true) {
+            try {
+                System.out.print("Enter new Price: ");
+                price = sc.nextDouble();
+                if (price >= 0) break;
+                System.out.println("Enter non-negative price");
+            } catch (InputMismatchException e) {
+                System.out.println("Invalid input! Enter a number");
+                sc.nextLine();
+            }
+        }
+        sc.nextLine();
+
+        try (PooledConnection con = pool.acquire()) {
+            PreparedStatement pstmt = con.prepare(UPDATE_FLIGHT_SQL);
+            pstmt.setString(1, source);
+            pstmt.setString(2, destination);
+            pstmt.setString(3, departureTime);
+            pstmt.setString(4, arrivalTime);
+            pstmt.setString(5, flightDate);
+            pstmt.setInt(6, capacity);
+            pstmt.setInt(7, capacity);
+            pstmt.setDouble(8, price);
+            pstmt.setInt(9, flightNumber);
+            pstmt.setInt(10, capacity);
+
+            int rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected > 0) {
+                // Re-read for the AvailableSeats the database worked out
+                pstmt = con.prepare(FlightCache.SELECT_FLIGHT_SQL);
+                pstmt.setInt(1, flightNumber);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) flightCache.put(FlightInfo.from(rs));
+                }
+                System.out.println("Flight updated successfully.");
+            } else {
+                System.out.println("Flight not found, or more seats are sold than the new capacity. Update failed.");
+            }
+        } catch (SQLException e) {
+            System.out.println("Error updating flight: " + e.getMessage());
+        }
+    }
+
+    static void deleteFlight(Scanner sc) throws SQLException {
+        System.out.print("Enter Flight Number to delete: ");
+        int flightNumber = sc.nextInt();
+
+        if (!servedHere(flightNumber) || !bookingWritesSettled()) return;
+
+        try {
+            // Pinned until the map is dropped, so no snapshot sees the change logged but not applied. Taken
+            // before the transaction's connection: loading a cold map acquires a connection of its own.
+            ReservationEngine.pin(flightNumber);
+            deleteFlight(flightNumber);
+            System.out.println("Flight deleted successfully.");
+        } catch (SQLException e) {
+            System.out.println("Error deleting flight: " + e.getMessage());
+        }
+    }
+
+    // Call with the flight's map pinned; the pin goes with the map
+    private static void deleteFlight(int flightNumber) throws SQLException {
+        boolean committed = false;
+        try (PooledConnection con = pool.acquire()) {
+            con.begin();
+            PreparedStatement pstmt = con.prepare(DELETE_FLIGHT_SEATS_SQL);
+            pstmt.setInt(1, flightNumber);
+            pstmt.executeUpdate();
+
+            pstmt = con.prepare(DELETE_FLIGHT_BOOKINGS_SQL);
+            pstmt.setInt(1, flightNumber);
+            pstmt.executeUpdate();
+
+            pstmt = con.prepare(DELETE_FLIGHT_SQL);
+            pstmt.setInt(1, flightNumber);
+            pstmt.executeUpdate();
+
+            SeatChangeLog.record(con, flightNumber);
+            con.commit();
+            committed = true;
+        } finally {
+            if (!committed) ReservationEngine.unpin(flightNumber, 1);
+        }
+        flightSeatTrees.remove(flightNumber);
+        flightCache.remove(flightNumber);
+    }
+
+    // Streams every flight a page at a time; memory use does not grow with the table
+    static void viewAllFlights() throws SQLException {
+        PrintWriter out = consoleWriter();
+        try {
+            KeysetCursor<FlightInfo> flights = Listings.flights(pool, 0, Listings.DEFAULT_PAGE_SIZE);
+
+            out.println("\n--- List of All Flights ---");
+            out.printf("%-15s %-15s %-15s %-15s %-15s %-15s %-15s %-10s%n",
+                    "Flight Number", "Source", "Destination", "Departure", "Arrival", "Date", "Available Seats", "Price");
+            out.println("----------------------------------------------------------------------------------------------------------------------");
+
+            boolean hasFlights = false;
+            while (flights.hasNext()) {
+                hasFlights = true;
+                FlightInfo flight = flights.next();
+                out.printf("%-15d %-15s %-15s %-15s %-15s %-15s %-15d %-10.2f%n",
+                        flight.flightNumber, flight.source, flight.destination, flight.departureTime,
+                        flight.arrivalTime, flight.flightDate, flight.availableSeats, flight.price);
+                if (flights.atPageEnd()) out.flush();
+            }
+
+            if (!hasFlights) {
+                out.println("No flights found.");
+            }
+        } catch (SQLException e) {
+            out.println("Error viewing flights: " + e.getMessage());
+        } finally {
+            out.flush();
+        }
+    }
+
+    // Route search served from the in-memory index, a page at a time
+    static void searchFlights(Scanner sc) {
+        System.out.print("Enter Source: ");
+        String source = sc.nextLine();
+        System.out.print("Enter Destination: ");
+        String destination = sc.nextLine();
+        LocalDate fromDate = readOptionalDate(sc, "Enter From Date (YYYY-MM-DD, blank for today): ");
+        LocalDate toDate = readOptionalDate(sc, "Enter To Date (YYYY-MM-DD, blank for no limit): ");
+
+        int minSeats = 1;
+        double maxPrice = Double.MAX_VALUE;
+        try {
+            System.out.print("Enter Minimum Seats (blank for 1): ");
+            String line = sc.nextLine().trim();
+            if (!line.isEmpty()) minSeats = Integer.parseInt(line);
+            System.out.print("Enter Maximum Price (blank for no limit): ");
+            line = sc.nextLine().trim();
+            if (!line.isEmpty()) maxPrice = Double.parseDouble(line);
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid number.");
+            return;
+        }
+
+        int page = 1;
+        while (true) {
+            FlightPage results = flightCache.index.search(source, destination, fromDate, toDate, minSeats, maxPrice,
+                    page, SEARCH_PAGE_SIZE);
+            if (results.totalMatches == 0) {
+                System.out.println("No flights found.");
+                return;
+            }
+
+            System.out.println("\n--- Flights " + source + " -> " + destination + " (page " + page + ", "
+                    + results.totalMatches + " found) ---");
+            System.out.printf("%-15s %-15s %-15s %-15s %-15s %-15s %-15s %-10s%n",
+                    "Flight Number", "Source", "Destination", "Departure", "Arrival", "Date", "Available Seats", "Price");
+            for (FlightInfo flight : results.flights) {
+                System.out.printf("%-15d %-15s %-15s %-15s %-15s %-15s %-15d %-10.2f%n",
+                        flight.flightNumber, flight.source, flight.destination, flight.departureTime,
+                        flight.arrivalTime, flight.flightDate, flight.availableSeats, flight.price);
+            }
+
+            if (!results.hasNext()) return;
+            System.out.print("Enter n for the next page, anything else to stop: ");
+            if (!sc.nextLine().trim().equalsIgnoreCase("n")) return;
+            page++;
+        }
+    }
+
+    // Blank input means no date; re-prompts until the input is blank or a valid date
+    static LocalDate readOptionalDate(Scanner sc, String prompt) {
+        while (true) {
+            System.out.print(prompt);
+            String line = sc.nextLine().trim();
+            if (line.isEmpty()) return null;
+            LocalDate date = DateTimeInput.toLocalDate(line);
+            if (date != null) return date;
+            System.out.println("Invalid date format! Use YYYY-MM-DD");
+        }
+    }
+
+    // Reads committed seat assignments straight from the table, a page at a time, so an admin
+    // listing neither loads the flight's seat map nor holds its lock
+    static void viewFlightSeatAssignments(Scanner sc) throws SQLException {
+        System.out.print("Enter Flight Number: ");
+        int flightNumber = sc.nextInt();
+
+        if (flightCache.get(pool, flightNumber) == null) {
+            System.out.println("Flight not found or no seat assignments.");
+            return;
+        }
+
+        if (!bookingWritesSettled()) return;
+
+        AircraftLayout layout = layoutOf(flightNumber);
+        PrintWriter out = consoleWriter();
+        try {
+            KeysetCursor<SeatAssignment> seats = Listings.seats(pool, flightNumber, Listings.DEFAULT_PAGE_SIZE);
+            out.println("\n--- Seat Assignments for Flight " + flightNumber + " ---");
+            if (!seats.hasNext()) {
+                out.println("No seats booked yet.");
+            }
+            while (seats.hasNext()) {
+                SeatAssignment seat = seats.next();
+                out.println("Seat " + seat.seatNumber + " (" + describeSeat(layout, seat.seatNumber) + ") -> " + seat.passengerName);
+                if (seats.atPageEnd()) out.flush();
+            }
+        } catch (SQLException e) {
+            out.println("Error viewing seat assignments: " + e.getMessage());
+        } finally {
+            out.flush();
+        }
+    }
+
+    static void viewAvailableSeats(Scanner sc) throws SQLException {
+        System.out.print("Enter Flight Number: ");
+        int flightNumber = sc.nextInt();
+
+        try {
+            SeatAvailability availability = ReservationEngine.availability(flightNumber);
+            if (availability != null) {
+                System.out.println("\n--- Available Seats for Flight " + flightNumber + " ---");
+                System.out.println("Total seats: " + availability.totalSeats);
+                System.out.println("Booked seats: " + availability.bookedSeats);
+                System.out.println("Available seats: " + (availability.totalSeats - availability.bookedSeats));
+
+                System.out.println("Available seat numbers (with types):");
+                printFreeSeats(availability);
+            } else {
+                System.out.println("Flight not found.");
+            }
+        } catch (SQLException e) {
+            System.out.println("Error viewing available seats: " + e.getMessage());
+        }
+    }
+
+    // FlightDate of the flight, or null if it does not exist
+    static String selectFlightDate(int flightNumber) throws SQLException {
+        FlightInfo flight = flightCache.get(pool, flightNumber);
+        return flight == null ? null : flight.flightDate.toString();
+    }
+
+    // ---------------- BOOKING METHODS ----------------
+    static void bookTicket(Scanner sc) throws SQLException {
+        System.out.print("Enter Flight Number to book: ");
+        int flightNumber = sc.nextInt();
+        sc.nextLine();
+        if (!servedHere(flightNumber)) return;
+
+        // Check if flight exists and date is valid
+        try {
+            String flightDateStr = selectFlightDate(flightNumber);
+            if (flightDateStr == null) {
+                System.out.println("Flight not found");
+                return;
+            }
+
+            // Check if flight date is in the past
+            if (!isFutureDate(flightDateStr)) {
+                System.out.println("Cannot book tickets for past flights");
+                return;
+            }
+        } catch (SQLException e) {
+            System.out.println("Error checking flight: " + e.getMessage());
+            return;
+        }
+
+        System.out.print("Enter Passenger Name: ");
+        String passengerName = sc.nextLine();
+        System.out.print("Enter Passenger Email: ");
+        String passengerEmail = sc.nextLine();
+
+        int seats = 0;
+        while (true) {
+            try {
+                System.out.print("Enter Number of Seats to book: ");
+                seats = sc.nextInt();
+                if (seats > 0) break;
+                System.out.println("Enter positive number of seats");
+            } catch (InputMismatchException e) {
+                System.out.println("Invalid input! Enter a number");
+                sc.nextLine();
+            }
+        }
+
+        sc.nextLine();
+        System.out.print("Seat preference (Window/Aisle/Middle, blank for any): ");
+        SeatType preference = SeatType.parse(sc.nextLine());
+
+        try {
+            BookingResult result = ReservationEngine.bookSeats(flightNumber, passengerName, passengerEmail, seats, preference);
+            switch (result.status) {
+                case BOOKED:
+                    System.out.println("Ticket booked successfully with auto-assigned seats");
+                    System.out.println("Booking ID: " + result.bookingId + ", Seats: " + Arrays.toString(result.seats));
+                    break;
+                case FLIGHT_NOT_FOUND:
+                    System.out.println("Flight not found.");
+                    break;
+                case FLIGHT_DEPARTED:
+                    System.out.println("Cannot book tickets for past flights");
+                    break;
+                case NOT_ENOUGH_SEATS:
+                    System.out.println("Not enough seats available");
+                    break;
+                default:
+                    System.out.println("Booking failed: " + result.status);
+            }
+        } catch (SQLException e) {
+            System.out.println("Error booking ticket: " + e.getMessage());
+        }
+    }
+
+    static void selectSpecificSeat(Scanner sc) throws SQLException {
+        System.out.print("Enter Flight Number: ");
+        int flightNumber = sc.nextInt();
+        sc.nextLine();
+        if (!servedHere(flightNumber)) return;
+
+        // Check if flight exists and date is valid
+        try {
+            String flightDateStr = selectFlightDate(flightNumber);
+            if (flightDateStr == null) {
+                System.out.println("Flight not found");
+                return;
+            }
+
+            // Check if flight date is in the past
+            if (!isFutureDate(flightDateStr)) {
+                System.out.println("Cannot select seats for past flights");
+                return;
+            }
+        } catch (SQLException e) {
+            System.out.println("Error checking flight: " + e.getMessage());
+            return;
+        }
+
+        System.out.print("Enter Passenger Name: ");
+        String passengerName = sc.nextLine();
+        System.out.print("Enter Passenger Email: ");
+        String passengerEmail = sc.nextLine();
+
+        viewAvailableSeatsForSelection(flightNumber);
+
+        int seatNumber = 0;
+        while (true) {
+            try {
+                System.out.print("Enter Seat Number: ");
+                seatNumber = sc.nextInt();
+                if (seatNumber > 0) break;
+                System.out.println("Enter positive seat number");
+            } catch (InputMismatchException e) {
+                System.out.println("Invalid input! Enter a number");
+                sc.nextLine();
+            }
+        }
+
+        sc.nextLine();
+
+        // The seat is held in memory while the passenger decides; only a confirmed hold is written
+        try {
+            BookingResult result = ReservationEngine.holdSeats(flightNumber, new int[]{seatNumber}, passengerName);
+            if (result.status == BookingResult.Status.HELD) {
+                String seatType = describeSeat(layoutOf(flightNumber), seatNumber);
+                System.out.println("Seat " + seatNumber + " (" + seatType + ") is held for you for "
+                        + SeatHolds.describe(SeatHolds.TTL_MILLIS) + ".");
+                System.out.print("Confirm booking? (y/n): ");
+                if (!sc.nextLine().trim().equalsIgnoreCase("y")) {
+                    ReservationEngine.releaseHold(result.holdId);
+                    System.out.println("Seat released.");
+                    return;
+                }
+                result = ReservationEngine.confirmHold(result.holdId, passengerEmail);
+            }
+            switch (result.status) {
+                case BOOKED:
+                    String seatType = describeSeat(layoutOf(flightNumber), seatNumber);
+                    System.out.println("Seat " + seatNumber + " (" + seatType + ") booked successfully for " + passengerName);
+                    System.out.println("Booking ID: " + result.bookingId);
+                    break;
+                case HOLD_NOT_FOUND:
+                    System.out.println("Your hold on the seat expired. Please select it again.");
+                    break;
+                case FLIGHT_NOT_FOUND:
+                    System.out.println("Flight not found.");
+                    break;
+                case INVALID_SEAT:
+                    System.out.println("Invalid seat number. Please select an available seat number shown above.");
+                    break;
+                case SEAT_TAKEN:
+                    System.out.println("Seat already booked. Please choose another seat.");
+                    break;
+                default:
+                    System.out.println("Not enough seats available");
+            }
+        } catch (SQLException e) {
+            System.out.println("Error selecting seat: " + e.getMessage());
+        }
+    }
+
+    static void viewAvailableSeatsForSelection(int flightNumber) throws SQLException {
+        try {
+            SeatAvailability availability = ReservationEngine.availability(flightNumber);
+            if (availability != null) {
+                System.out.println("\n--- Available Seats for Flight " + flightNumber + " ---");
+                printFreeSeats(availability);
+            }
+        } catch (SQLException e) {
+            System.out.println("Error viewing available seats: " + e.getMessage());
+        }
+    }
+
+    static void printFreeSeats(SeatAvailability availability) {
+        for (int seat : availability.freeSeats) {
+            String seatType = describeSeat(availability.layout, seat);
+            System.out.println("Seat " + seat + " (" + seatType + ")");
+        }
+    }
+
+    static void cancelBooking(Scanner sc) throws SQLException {
+        System.out.print("Enter Booking ID to cancel: ");
+        int bookingId = sc.nextInt();
+
+        try {
+            if (!bookingServedHere(bookingId)) return;
+            BookingResult result = ReservationEngine.cancel(bookingId);
+            if (result.isSuccess()) {
+                System.out.println("Booking canceled successfully");
+            } else {
+                System.out.println("Booking not found");
+            }
+        } catch (SQLException e) {
+            System.out.println("Error canceling booking: " + e.getMessage());
+        }
+    }
+
+    static void updateBooking(Scanner sc) throws SQLException {
+        System.out.print("Enter Booking ID to update: ");
+        int bookingId = sc.nextInt();
+        sc.nextLine();
+        try {
+            if (!bookingServedHere(bookingId)) return;
+        } catch (SQLException e) {
+            System.out.println("Error updating booking: " + e.getMessage());
+            return;
+        }
+        System.out.print("Enter new Passenger Name: ");
+        String passengerName = sc.nextLine();
+        System.out.print("Enter new Passenger Email: ");
+        String passengerEmail = sc.nextLine();
+
+        int newSeats = 0;
+        while (true) {
+            try {
+                System.out.print("Enter new number of seats: ");
+                newSeats = sc.nextInt();
+                if (newSeats >= 0) break;
+                System.out.println("Enter non-negative number of seats");
+            } catch (InputMismatchException e) {
+                System.out.println("Invalid input! Enter a number");
+                sc.nextLine();
+            }
+        }
+
+        if (!bookingWritesSettled()) return;
+
+        int flightNumber;
+        try {
+            Integer flight = ReservationEngine.flightOfBooking(bookingId);
+            if (flight == null) {
+                System.out.println("Booking not found.");
+                return;
+            }
+            flightNumber = flight;
+            // Pinned until the map has any new name, so no snapshot sees a rename logged but not applied. Taken
+            // before the transaction's connection: loading a cold map acquires a connection of its own.
+            ReservationEngine.pin(flightNumber);
+        } catch (SQLException e) {
+            System.out.println("Error updating booking: " + e.getMessage());
+            return;
+        }
+
+        boolean renamed = false;
+        boolean committed = false;
+        try (PooledConnection con = pool.acquire()) {
+            con.begin();
+            PreparedStatement pstmt = con.prepare(SELECT_BOOKING_SQL);
+            pstmt.setInt(1, bookingId);
+            int oldSeats;
+            String oldPassengerName;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    System.out.println("Booking not found.");
+                    return;
+                }
+                oldSeats = rs.getInt("SeatsBooked");
+                oldPassengerName = rs.getString("PassengerName");
+            }
+
+            pstmt = con.prepare(UPDATE_BOOKING_SQL);
+            pstmt.setString(1, passengerName);
+            pstmt.setString(2, passengerEmail);
+            pstmt.setInt(3, newSeats);
+            pstmt.setInt(4, bookingId);
+            pstmt.executeUpdate();
+
+            pstmt = con.prepare(ADJUST_SEATS_SQL);
+            pstmt.setInt(1, oldSeats);
+            pstmt.setInt(2, newSeats);
+            pstmt.setInt(3, flightNumber);
+            pstmt.executeUpdate();
+
+            renamed = !oldPassengerName.equals(passengerName);
+            if (renamed) {
+                pstmt = con.prepare(RENAME_BOOKING_SEATS_SQL);
+                pstmt.setString(1, passengerName);
+                pstmt.setInt(2, bookingId);
+                pstmt.executeUpdate();
+
+                SeatChangeLog.record(con, SeatChangeLog.RENAME, flightNumber, bookingId, passengerName, null);
+            }
+            con.commit();
+            committed = true;
+            flightCache.adjustAvailableSeats(flightNumber, oldSeats - newSeats);
+            System.out.println("Booking updated successfully.");
+        } catch (SQLException e) {
+            System.out.println("Error updating booking: " + e.getMessage());
+        } finally {
+            // The pinned seat map follows a committed rename in place
+            ReentrantLock lock = ReservationEngine.lockFor(flightNumber);
+            lock.lock();
+            try {
+                SeatMap seatMap = flightSeatTrees.getIfLoaded(flightNumber);
+                if (seatMap != null) {
+                    if (committed && renamed) seatMap.renameBooking(bookingId, passengerName);
+                    seatMap.unpin();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    static void viewBookingDetails(Scanner sc) throws SQLException {
+        System.out.print("Enter Booking ID to view details: ");
+        int bookingId = sc.nextInt();
+        int flightNumber;
+
+        if (!bookingWritesSettled()) return;
+
+        try (PooledConnection con = pool.acquire()) {
+            PreparedStatement pstmt = con.prepare(SELECT_BOOKING_DETAILS_SQL);
+            pstmt.setInt(1, bookingId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    System.out.println("Booking not found.");
+                    return;
+                }
+                System.out.println("Booking ID: " + rs.getInt("BookingID"));
+                flightNumber = rs.getInt("FlightNumber");
+                System.out.println("Flight Number: " + flightNumber);
+                System.out.println("Passenger Name: " + rs.getString("PassengerName"));
+                System.out.println("Passenger Email: " + rs.getString("PassengerEmail"));
+                System.out.println("Seats Booked: " + rs.getInt("SeatsBooked"));
+                System.out.println("Booking Date: " + rs.getDate("BookingDate"));
+            }
+
+            PreparedStatement seatStmt = con.prepare(SELECT_BOOKING_SEATS_SQL);
+            seatStmt.setInt(1, bookingId);
+
+            AircraftLayout layout = layoutOf(flightNumber);
+            System.out.print("Assigned Seats: ");
+            boolean hasSeats = false;
+            try (ResultSet seatRS = seatStmt.executeQuery()) {
+                while (seatRS.next()) {
+                    hasSeats = true;
+                    int seatNumber = seatRS.getInt("SeatNumber");
+                    String seatType = describeSeat(layout, seatNumber);
+                    System.out.print(seatNumber + " (" + seatType + ") ");
+                }
+            }
+            if (!hasSeats) System.out.print("Not yet assigned");
+            System.out.println();
+        } catch (SQLException e) {
+            System.out.println("Error viewing booking details: " + e.getMessage());
+        }
+    }
+
+    static void addSpecialRequests(Scanner sc) throws SQLException {
+        System.out.print("Enter Booking ID: ");
+        int bookingId = sc.nextInt();
+        sc.nextLine();
+
+        System.out.print("Enter special requests: ");
+        String specialRequests = sc.nextLine();
+
+        if (!bookingWritesSettled()) return;
+
+        try (PooledConnection con = pool.acquire()) {
+            PreparedStatement pstmt = con.prepare(UPDATE_SPECIAL_REQUESTS_SQL);
+            pstmt.setString(1, specialRequests);
+            pstmt.setInt(2, bookingId);
+
+            int rowsAffected = pstmt.executeUpdate();
+            if (rowsAffected > 0) {
+                System.out.println("Special requests added successfully");
+            } else {
+                System.out.println("Booking not found");
+            }
+        } catch (SQLException e) {
+            System.out.println("Error adding special requests: " + e.getMessage());
+        }
+    }
+
+    static void viewSpecialRequests(Scanner sc) throws SQLException {
+        System.out.print("Enter Booking ID: ");
+        int bookingId = sc.nextInt();
+
+        if (!bookingWritesSettled()) return;
+
+        try (PooledConnection con = pool.acquire()) {
+            PreparedStatement pstmt = con.prepare(SELECT_SPECIAL_REQUESTS_SQL);
+            pstmt.setInt(1, bookingId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    String specialRequests = rs.getString("SpecialRequests");
+                    if (specialRequests != null && !specialRequests.trim().isEmpty()) {
+                        System.out.println("Special Requests: " + specialRequests);
+                    } else {
+                        System.out.println("No special requests found for this booking.");
+                    }
+                } else {
+                    System.out.println("Booking not found.");
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println("Error viewing special requests: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package airline;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// JSON booking API served next to the console menus.
+// Requests run one per thread. The build targets release 17, so virtual threads are only used when the
+// process runs on JDK 21 or newer; on 17 requests share a fixed pool of -Dhttp.threads (default 200),
+// which caps how many are served at once.
+//
+//   GET    /flights[?after=&limit=]        list flights in FlightNumber order; streamed in full, or one
+//                                          keyset page with X-Next-After set when more follow
+//   GET    /flights/search?source=&destination=[&from=&to=&minSeats=&maxPrice=&page=&size=]
+//   GET    /flights/{flightNumber}/seats   seat availability
+//   POST   /bookings                       {"flightNumber", "passengerName", "passengerEmail", "seats"[, "seatPreference"]}
+//   POST   /bookings/seat                  {"flightNumber", "seatNumber", "passengerName", "passengerEmail"}
+//   DELETE /bookings/{bookingId}           cancel a booking
+//   POST   /holds                          {"flightNumber", "seatNumbers" ("12,13"), "passengerName"}; seats held in
+//                                          memory only, released after SeatHolds.TTL_MILLIS unless confirmed
+//   POST   /holds/{holdId}/confirm         {"passengerEmail"}; books the held seats
+//   DELETE /holds/{holdId}                 release a hold
+//   GET    /metrics                        latency histograms and counters, Prometheus text format
+//   GET    /cluster                        this node's view of the cluster; also the cluster heartbeat
+//
+// In cluster mode, requests for one flight's seats, bookings or holds are forwarded to the node that owns
+// the flight (or created the hold) and its answer is relayed; everything else is served by any node.
+// Until the node has heard its first round of heartbeats, flight requests are answered with 503.
+class HttpApi {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_LIST_PAGE_SIZE = 1000;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private HttpApi(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    static HttpApi start(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 1024);
+        ExecutorService executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", HttpApi::handle);
+        server.start();
+        return new HttpApi(server, executor);
+    }
+
+    void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() is looked up reflectively so the code still runs on 17
+    private static ExecutorService newRequestExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            System.out.println("HTTP requests run on virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            int threads = Integer.getInteger("http.threads", 200);
+            System.out.println("HTTP requests run on " + threads + " threads (virtual threads need JDK 21)");
+            return Executors.newFixedThreadPool(threads);
+        }
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/");
+            byte[] body = method.equals("POST") ? readBytes(exchange) : null;
+
+            Cluster cluster = FlightTicketBookingSystem.cluster;
+            if (cluster != null && !exchange.getRequestHeaders().containsKey(Cluster.FORWARDED_HEADER)) {
+                Cluster.Node owner;
+                try {
+                    owner = owner(cluster, method, path, body);
+                } catch (IllegalStateException e) {
+                    sendError(exchange, 503, e.getMessage());
+                    return;
+                }
+                if (owner != null) {
+                    relay(exchange, cluster, owner, body);
+                    return;
+                }
+            }
+
+            if (method.equals("GET") && path.length == 1 && path[0].equals("flights")) {
+                listFlights(exchange, queryParams(exchange));
+            } else if (method.equals("GET") && path.length == 2 && path[0].equals("flights") && path[1].equals("search")) {
+                searchFlights(exchange, queryParams(exchange));
+            } else if (method.equals("GET") && path.length == 3 && path[0].equals("flights") && path[2].equals("seats")) {
+                seatAvailability(exchange, Integer.parseInt(path[1]));
+            } else if (method.equals("POST") && path.length == 1 && path[0].equals("bookings")) {
+                book(exchange, readBody(body));
+            } else if (method.equals("POST") && path.length == 2 && path[0].equals("bookings") && path[1].equals("seat")) {
+                selectSeat(exchange, readBody(body));
+            } else if (method.equals("DELETE") && path.length == 2 && path[0].equals("bookings")) {
+                cancel(exchange, Integer.parseInt(path[1]));
+            } else if (method.equals("POST") && path.length == 1 && path[0].equals("holds")) {
+                hold(exchange, readBody(body));
+            } else if (method.equals("POST") && path.length == 3 && path[0].equals("holds") && path[2].equals("confirm")) {
+                confirmHold(exchange, Long.parseLong(path[1]), readBody(body));
+            } else if (method.equals("DELETE") && path.length == 2 && path[0].equals("holds")) {
+                sendResult(exchange, ReservationEngine.releaseHold(Long.parseLong(path[1])));
+            } else if (method.equals("GET") && path.length == 1 && path[0].equals("metrics")) {
+                metrics(exchange);
+            } else if (method.equals("GET") && path.length == 1 && path[0].equals("cluster") && cluster != null) {
+                send(exchange, 200, cluster.describe());
+            } else {
+                sendError(exchange, 404, "Not found");
+            }
+        } catch (IllegalArgumentException e) {
+            sendErrorIfUnsent(exchange, 400, e.getMessage());
+        } catch (SQLException e) {
+            sendErrorIfUnsent(exchange, 500, "Database error: " + e.getMessage());
+        } catch (RuntimeException e) {
+            System.out.println("Error handling " + exchange.getRequestMethod() + " " + exchange.getRequestURI() + ": " + e);
+            sendErrorIfUnsent(exchange, 500, "Internal error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // ---------------- CLUSTER ----------------
+    // The node that must answer the request; null when this node should, including for malformed
+    // requests, which are rejected here like any other
+    private static Cluster.Node owner(Cluster cluster, String method, String[] path, byte[] body) throws SQLException {
+        try {
+            if (method.equals("GET") && path.length == 3 && path[0].equals("flights") && path[2].equals("seats")) {
+                return cluster.ownerOf(Integer.parseInt(path[1]));
+            }
+            if (method.equals("POST") && (path[0].equals("bookings") || path[0].equals("holds")) && path.length <= 2) {
+                return cluster.ownerOf(intField(readBody(body), "flightNumber"));
+            }
+            if (method.equals("DELETE") && path.length == 2 && path[0].equals("bookings")) {
+                Integer flightNumber = ReservationEngine.flightOfBooking(Integer.parseInt(path[1]));
+                return flightNumber == null ? null : cluster.ownerOf(flightNumber);
+            }
+            if (path.length >= 2 && path[0].equals("holds")) {
+                return cluster.holderOf(Long.parseLong(path[1]));
+            }
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return null;
+    }
+
+    private static void relay(HttpExchange exchange, Cluster cluster, Cluster.Node owner, byte[] body) throws IOException {
+        String pathAndQuery = exchange.getRequestURI().getRawPath();
+        if (exchange.getRequestURI().getRawQuery() != null) pathAndQuery += "?" + exchange.getRequestURI().getRawQuery();
+        HttpResponse<byte[]> response;
+        try {
+            response = cluster.forward(owner, exchange.getRequestMethod(), pathAndQuery, body);
+        } catch (IOException e) {
+            sendError(exchange, 503, "Node " + owner.address + " is unavailable: " + e.getMessage());
+            return;
+        }
+        byte[] bytes = response.body();
+        exchange.getResponseHeaders().set("Content-Type",
+                response.headers().firstValue("Content-Type").orElse("application/json; charset=utf-8"));
+        exchange.sendResponseHeaders(response.statusCode(), bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // ---------------- ENDPOINTS ----------------
+    private static void listFlights(HttpExchange exchange, Map<String, String> query) throws IOException, SQLException {
+        int after = Integer.parseInt(query.getOrDefault("after", "0"));
+        if (query.containsKey("limit")) {
+            int limit = Math.max(1, Math.min(Integer.parseInt(query.get("limit")), MAX_LIST_PAGE_SIZE));
+            List<FlightInfo> flights = Listings.flightPage(FlightTicketBookingSystem.pool, after, limit);
+            if (flights.size() == limit) {
+                exchange.getResponseHeaders().set("X-Next-After", String.valueOf(flights.get(limit - 1).flightNumber));
+            }
+            StringBuilder sb = new StringBuilder("[");
+            for (int i = 0; i < flights.size(); i++) {
+                if (i > 0) sb.append(',');
+                appendFlight(sb, flights.get(i));
+            }
+            send(exchange, 200, sb.append(']').toString());
+            return;
+        }
+
+        // Whole table: chunked response written page by page. The first page is fetched before the
+        // headers go out so a database error can still be reported as a 500.
+        KeysetCursor<FlightInfo> flights = Listings.flights(FlightTicketBookingSystem.pool, after, Listings.DEFAULT_PAGE_SIZE);
+        flights.hasNext();
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 1 << 16)) {
+            StringBuilder sb = new StringBuilder("[");
+            boolean first = true;
+            while (flights.hasNext()) {
+                if (!first) sb.append(',');
+                first = false;
+                appendFlight(sb, flights.next());
+                out.append(sb);
+                sb.setLength(0);
+            }
+            out.append(sb).append(']');
+        }
+    }
+
+    private static void searchFlights(HttpExchange exchange, Map<String, String> query) throws IOException {
+        String source = query.get("source");
+        String destination = query.get("destination");
+        if (source == null || destination == null) {
+            throw new IllegalArgumentException("source and destination are required");
+        }
+        LocalDate from = optionalDate(query, "from");
+        LocalDate to = optionalDate(query, "to");
+        int minSeats = Integer.parseInt(query.getOrDefault("minSeats", "1"));
+        double maxPrice = query.containsKey("maxPrice") ? Double.parseDouble(query.get("maxPrice")) : Double.MAX_VALUE;
+        int page = Integer.parseInt(query.getOrDefault("page", "1"));
+        int size = Math.min(Integer.parseInt(query.getOrDefault("size", "20")), MAX_PAGE_SIZE);
+
+        FlightPage results = FlightTicketBookingSystem.flightCache.index.search(source, destination, from, to,
+                minSeats, maxPrice, page, size);
+        StringBuilder sb = new StringBuilder("{\"page\":").append(results.page)
+                .append(",\"size\":").append(results.pageSize)
+                .append(",\"total\":").append(results.totalMatches)
+                .append(",\"flights\":[");
+        for (int i = 0; i < results.flights.size(); i++) {
+            if (i > 0) sb.append(',');
+            appendFlight(sb, results.flights.get(i));
+        }
+        send(exchange, 200, sb.append("]}").toString());
+    }
+
+    // The parameter as a date, or null when absent
+    private static LocalDate optionalDate(Map<String, String> query, String name) {
+        if (!query.containsKey(name)) return null;
+        LocalDate date = DateTimeInput.toLocalDate(query.get(name));
+        if (date == null) throw new IllegalArgumentException("Dates must be YYYY-MM-DD");
+        return date;
+    }
+
+    private static void seatAvailability(HttpExchange exchange, int flightNumber) throws IOException, SQLException {
+        SeatAvailability availability = ReservationEngine.availability(flightNumber);
+        if (availability == null) {
+            sendError(exchange, 404, "Flight not found");
+            return;
+        }
+        send(exchange, 200, "{\"flightNumber\":" + flightNumber +
+                ",\"layoutCode\":" + Json.quote(availability.layout.code) +
+                ",\"totalSeats\":" + availability.totalSeats +
+                ",\"bookedSeats\":" + availability.bookedSeats +
+                ",\"freeSeats\":" + Json.array(availability.freeSeats) + "}");
+    }
+
+    private static void book(HttpExchange exchange, Map<String, String> body) throws IOException, SQLException {
+        int flightNumber = intField(body, "flightNumber");
+        int seats = intField(body, "seats");
+        if (seats <= 0) throw new IllegalArgumentException("seats must be positive");
+
+        String preferenceText = body.get("seatPreference");
+        SeatType preference = SeatType.parse(preferenceText);
+        if (preferenceText != null && !preferenceText.isEmpty() && preference == null) {
+            throw new IllegalArgumentException("seatPreference must be Window, Aisle or Middle");
+        }
+
+        BookingResult result = ReservationEngine.bookSeats(flightNumber, passengerName(body), passengerEmail(body), seats, preference);
+        sendResult(exchange, result);
+    }
+
+    private static void selectSeat(HttpExchange exchange, Map<String, String> body) throws IOException, SQLException {
+        int flightNumber = intField(body, "flightNumber");
+        int seatNumber = intField(body, "seatNumber");
+
+        BookingResult result = ReservationEngine.bookSpecificSeat(flightNumber, seatNumber, passengerName(body), passengerEmail(body));
+        sendResult(exchange, result);
+    }
+
+    private static void cancel(HttpExchange exchange, int bookingId) throws IOException, SQLException {
+        sendResult(exchange, ReservationEngine.cancel(bookingId));
+    }
+
+    private static void hold(HttpExchange exchange, Map<String, String> body) throws IOException, SQLException {
+        int flightNumber = intField(body, "flightNumber");
+        String seatList = body.get("seatNumbers");
+        if (seatList == null) throw new IllegalArgumentException("Missing field: seatNumbers");
+        String[] parts = seatList.split(",");
+        int[] seatNumbers = new int[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                seatNumbers[i] = Integer.parseInt(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("seatNumbers must be comma-separated numbers");
+        }
+        sendResult(exchange, ReservationEngine.holdSeats(flightNumber, seatNumbers, passengerName(body)));
+    }
+
+    private static void confirmHold(HttpExchange exchange, long holdId, Map<String, String> body) throws IOException, SQLException {
+        sendResult(exchange, ReservationEngine.confirmHold(holdId, passengerEmail(body)));
+    }
+
+    private static void metrics(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(),
+                StandardCharsets.UTF_8), 1 << 16))) {
+            Metrics.writePrometheus(out, FlightTicketBookingSystem.flightSeatTrees);
+        }
+    }
+
+    // ---------------- HELPERS ----------------
+    private static Map<String, String> queryParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) return params;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static byte[] readBytes(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static Map<String, String> readBody(byte[] body) {
+        return Json.parseObject(new String(body, StandardCharsets.UTF_8));
+    }
+
+    private static int intField(Map<String, String> body, String name) {
+        String value = body.get(name);
+        if (value == null) throw new IllegalArgumentException("Missing field: " + name);
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Field " + name + " must be a number");
+        }
+    }
+
+    // Same rules as passengerLogin
+    private static String passengerName(Map<String, String> body) {
+        String name = body.get("passengerName");
+        if (name == null || name.isEmpty()) throw new IllegalArgumentException("passengerName is required");
+        return name;
+    }
+
+    private static String passengerEmail(Map<String, String> body) {
+        String email = body.get("passengerEmail");
+        if (email == null || !email.contains("@")) throw new IllegalArgumentException("passengerEmail is invalid");
+        return email;
+    }
+
+    private static void appendFlight(StringBuilder sb, FlightInfo flight) {
+        sb.append("{\"flightNumber\":").append(flight.flightNumber)
+                .append(",\"source\":").append(Json.quote(flight.source))
+                .append(",\"destination\":").append(Json.quote(flight.destination))
+                .append(",\"departureTime\":").append(Json.quote(flight.departureTime))
+                .append(",\"arrivalTime\":").append(Json.quote(flight.arrivalTime))
+                .append(",\"flightDate\":").append(Json.quote(flight.flightDate.toString()))
+                .append(",\"availableSeats\":").append(flight.availableSeats)
+                .append(",\"capacity\":").append(flight.capacity)
+                .append(",\"layoutCode\":").append(Json.quote(flight.layoutCode))
+                .append(",\"price\":").append(flight.price)
+                .append('}');
+    }
+
+    private static void sendResult(HttpExchange exchange, BookingResult result) throws IOException {
+        int status;
+        switch (result.status) {
+            case BOOKED:
+            case HELD: status = 201; break;
+            case CANCELLED:
+            case HOLD_RELEASED: status = 200; break;
+            case FLIGHT_NOT_FOUND:
+            case BOOKING_NOT_FOUND:
+            case HOLD_NOT_FOUND: status = 404; break;
+            case INVALID_SEAT: status = 400; break;
+            default: status = 409;
+        }
+        send(exchange, status, "{\"status\":" + Json.quote(result.status.name()) +
+                ",\"bookingId\":" + result.bookingId +
+                ",\"flightNumber\":" + result.flightNumber +
+                ",\"seats\":" + Json.array(result.seats) +
+                (result.holdId == 0 ? "" : ",\"holdId\":" + result.holdId) + "}");
+    }
+
+    // A response that failed after its headers went out (e.g. a streamed listing) can only be cut off
+    private static void sendErrorIfUnsent(HttpExchange exchange, int status, String message) throws IOException {
+        if (exchange.getResponseCode() == -1) sendError(exchange, status, message);
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, "{\"error\":" + Json.quote(message) + "}");
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
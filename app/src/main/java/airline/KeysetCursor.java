@@ -0,0 +1,58 @@
+package airline;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.ToIntFunction;
+
+// Forward-only iteration in key order, fetched one bounded page at a time.
+// Each page is a fresh "key > last key LIMIT n" query, so no connection or server-side cursor is
+// held between pages and memory stays at one page however large the table is.
+class KeysetCursor<T> {
+    interface PageQuery<T> {
+        List<T> fetch(int afterKey, int limit) throws SQLException;
+    }
+
+    private final PageQuery<T> query;
+    private final ToIntFunction<T> keyOf;
+    private final int pageSize;
+    private List<T> page = Collections.emptyList();
+    private int pos;
+    private int lastKey;
+    private boolean exhausted;
+
+    KeysetCursor(PageQuery<T> query, ToIntFunction<T> keyOf, int afterKey, int pageSize) {
+        this.query = query;
+        this.keyOf = keyOf;
+        this.lastKey = afterKey;
+        this.pageSize = pageSize;
+    }
+
+    boolean hasNext() throws SQLException {
+        if (pos < page.size()) return true;
+        if (exhausted) return false;
+
+        page = query.fetch(lastKey, pageSize);
+        pos = 0;
+        exhausted = page.size() < pageSize;
+        return !page.isEmpty();
+    }
+
+    T next() throws SQLException {
+        if (!hasNext()) throw new NoSuchElementException();
+        T row = page.get(pos++);
+        lastKey = keyOf.applyAsInt(row);
+        return row;
+    }
+
+    // True when the rows returned so far end a page, a natural point to flush output
+    boolean atPageEnd() {
+        return pos == page.size();
+    }
+
+    // Key of the last row returned; pass it back as afterKey to resume
+    int lastKey() {
+        return lastKey;
+    }
+}
@@ -0,0 +1,56 @@
+package airline;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+// Keyset-paginated reads of the large tables, for the console listings and the HTTP API
+class Listings {
+    static final String FLIGHTS_PAGE_SQL = "SELECT * FROM Flights WHERE FlightNumber > ? ORDER BY FlightNumber LIMIT ?";
+    static final String SEATS_PAGE_SQL = "SELECT SeatNumber, PassengerName, BookingID FROM seat_assignments " +
+            "WHERE FlightNumber = ? AND SeatNumber > ? ORDER BY SeatNumber LIMIT ?";
+
+    static final int DEFAULT_PAGE_SIZE = 500;
+
+    // Flights with FlightNumber > afterFlightNumber, in FlightNumber order
+    static KeysetCursor<FlightInfo> flights(ConnectionPool pool, int afterFlightNumber, int pageSize) {
+        return new KeysetCursor<>((after, limit) -> flightPage(pool, after, limit), f -> f.flightNumber, afterFlightNumber, pageSize);
+    }
+
+    // Seat assignments of one flight in SeatNumber order
+    static KeysetCursor<SeatAssignment> seats(ConnectionPool pool, int flightNumber, int pageSize) {
+        return new KeysetCursor<>((after, limit) -> seatPage(pool, flightNumber, after, limit), s -> s.seatNumber, 0, pageSize);
+    }
+
+    // Up to limit flights with FlightNumber > afterFlightNumber
+    static List<FlightInfo> flightPage(ConnectionPool pool, int afterFlightNumber, int limit) throws SQLException {
+        List<FlightInfo> flights = new ArrayList<>(limit);
+        try (PooledConnection con = pool.acquire()) {
+            PreparedStatement pstmt = con.prepare(FLIGHTS_PAGE_SQL);
+            pstmt.setInt(1, afterFlightNumber);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    flights.add(FlightInfo.from(rs));
+                }
+            }
+        }
+        return flights;
+    }
+
+    static List<SeatAssignment> seatPage(ConnectionPool pool, int flightNumber, int afterSeatNumber, int limit) throws SQLException {
+        List<SeatAssignment> seats = new ArrayList<>(limit);
+        try (PooledConnection con = pool.acquire()) {
+            PreparedStatement pstmt = con.prepare(SEATS_PAGE_SQL);
+            pstmt.setInt(1, flightNumber);
+            pstmt.setInt(2, afterSeatNumber);
+            pstmt.setInt(3, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    seats.add(new SeatAssignment(flightNumber, rs.getInt("SeatNumber"), rs.getString("PassengerName"), rs.getInt("BookingID")));
+                }
+            }
+        }
+        return seats;
+    }
+}
@@ -0,0 +1,194 @@
+package airline;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Bulk booking from a partner manifest, one party per line, comma or tab separated:
+//   FlightNumber, PassengerName, PassengerEmail, Seats [, SeatPreference]
+// Blank lines, lines starting with # and a header line starting with "FlightNumber" are skipped.
+// Lines are grouped by flight and each flight's parties go through ReservationEngine.bookBatch(), so a
+// flight costs one seat-map lock acquisition and one transaction per BATCH_SIZE parties. With
+// -Dbooking.loops the parties are queued on the flight's loop instead, which batches them the same way
+// up to BookingLoops.MAX_BATCH at a time. Parties on a flight are seated in manifest order. In cluster
+// mode, lines for flights another node owns are not booked and get ERROR.
+// One result line is written per manifest line, in the same order:
+//   Line, FlightNumber, PassengerName, Status, BookingID, Detail
+// where Detail is the space-separated seat numbers of a booking, or why the line was not booked.
+class ManifestBooker {
+    static final int BATCH_SIZE = 500;
+    static final String RESULTS_HEADER = "Line,FlightNumber,PassengerName,Status,BookingID,Detail";
+
+    // Totals of one run
+    static class Summary {
+        int booked;
+        int failed;
+    }
+
+    // A manifest line with its parsed request, or the reason it could not be parsed
+    private static class Entry {
+        final int line;
+        final String[] fields;
+        BookingRequest request;
+        String outcome;
+
+        Entry(int line, String[] fields) {
+            this.line = line;
+            this.fields = fields;
+        }
+    }
+
+    static Summary book(BufferedReader in, PrintWriter results) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        Map<Integer, List<Entry>> byFlight = new LinkedHashMap<>();
+        int lineNumber = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+            if (lineNumber == 1 && trimmed.regionMatches(true, 0, "FlightNumber", 0, 12)) continue;
+
+            Entry entry = new Entry(lineNumber, FlightImporter.fields(line));
+            entries.add(entry);
+            entry.request = parse(entry);
+            if (entry.request != null) {
+                byFlight.computeIfAbsent(entry.request.flightNumber, k -> new ArrayList<>()).add(entry);
+            }
+        }
+
+        for (Map.Entry<Integer, List<Entry>> flight : byFlight.entrySet()) {
+            List<Entry> parties = flight.getValue();
+            String refusal = FlightTicketBookingSystem.refusalFor(flight.getKey());
+            if (refusal != null) {
+                for (Entry entry : parties) {
+                    entry.outcome = "ERROR,," + csv(refusal);
+                }
+                continue;
+            }
+            for (int from = 0; from < parties.size(); from += BATCH_SIZE) {
+                bookChunk(flight.getKey(), parties.subList(from, Math.min(from + BATCH_SIZE, parties.size())));
+            }
+        }
+
+        Summary summary = new Summary();
+        results.println(RESULTS_HEADER);
+        for (Entry entry : entries) {
+            if (entry.outcome.startsWith(BookingResult.Status.BOOKED.name())) {
+                summary.booked++;
+            } else {
+                summary.failed++;
+            }
+            results.println(entry.line + "," + (entry.fields.length > 0 ? csv(entry.fields[0]) : "") + ","
+                    + (entry.fields.length > 1 ? csv(entry.fields[1]) : "") + "," + entry.outcome);
+        }
+        results.flush();
+        return summary;
+    }
+
+    // The request, or null after setting the entry's outcome to the reason it was rejected
+    private static BookingRequest parse(Entry entry) {
+        String[] fields = entry.fields;
+        if (fields.length < 4 || fields.length > 5) {
+            entry.outcome = invalid("expected 4 or 5 fields, found " + fields.length);
+            return null;
+        }
+        int flightNumber;
+        int seats;
+        try {
+            flightNumber = Integer.parseInt(fields[0]);
+            seats = Integer.parseInt(fields[3]);
+        } catch (NumberFormatException e) {
+            entry.outcome = invalid("flight number and seats must be numbers");
+            return null;
+        }
+        if (seats <= 0) {
+            entry.outcome = invalid("seats must be positive");
+            return null;
+        }
+        if (fields[1].isEmpty()) {
+            entry.outcome = invalid("passenger name is required");
+            return null;
+        }
+        if (!fields[2].contains("@")) {
+            entry.outcome = invalid("passenger email is invalid");
+            return null;
+        }
+        SeatType preference = null;
+        if (fields.length > 4 && !fields[4].isEmpty()) {
+            preference = SeatType.parse(fields[4]);
+            if (preference == null) {
+                entry.outcome = invalid("seat preference must be Window, Aisle or Middle");
+                return null;
+            }
+        }
+        return new BookingRequest(flightNumber, fields[1], fields[2], seats, preference);
+    }
+
+    private static void bookChunk(int flightNumber, List<Entry> chunk) {
+        BookingLoops loops = BookingLoops.route();
+        if (loops != null) {
+            bookOnLoop(loops, chunk);
+            return;
+        }
+        List<BookingRequest> requests = new ArrayList<>(chunk.size());
+        for (Entry entry : chunk) {
+            requests.add(entry.request);
+        }
+        try {
+            BookingResult[] booked = ReservationEngine.bookBatch(flightNumber, requests);
+            for (int i = 0; i < booked.length; i++) {
+                chunk.get(i).outcome = outcome(booked[i]);
+            }
+        } catch (SQLException e) {
+            for (Entry entry : chunk) {
+                entry.outcome = "ERROR,," + csv(e.getMessage());
+            }
+        }
+    }
+
+    // Queues every party before waiting for any, so the loop drains them together
+    private static void bookOnLoop(BookingLoops loops, List<Entry> chunk) {
+        List<CompletableFuture<BookingResult>> results = new ArrayList<>(chunk.size());
+        for (Entry entry : chunk) {
+            results.add(loops.bookAsync(entry.request));
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            try {
+                chunk.get(i).outcome = outcome(BookingLoops.await(results.get(i)));
+            } catch (SQLException e) {
+                chunk.get(i).outcome = "ERROR,," + csv(e.getMessage());
+            }
+        }
+    }
+
+    private static String outcome(BookingResult result) {
+        return result.status + "," + (result.bookingId == 0 ? "" : result.bookingId) + "," + seatList(result.seats);
+    }
+
+    private static String invalid(String reason) {
+        return "INVALID,," + csv(reason);
+    }
+
+    private static String seatList(int[] seats) {
+        StringBuilder sb = new StringBuilder();
+        for (int seat : seats) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(seat);
+        }
+        return sb.toString();
+    }
+
+    // Quotes a field holding a separator or quote
+    private static String csv(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,268 @@
+package airline;
+
+import java.io.PrintWriter;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Latency histograms and counters for booking operations and SQL statements, with seat map gauges,
+// exported in the Prometheus text format (GET /metrics, or View Metrics in the admin menu).
+// Operations are timed by their callers with record(). SQL statements are timed by a delegating wrapper
+// around each cached PreparedStatement, which also emits a DatabaseCallEvent per round trip; -Dmetrics.sql=false
+// hands out the driver's statements unwrapped. Histograms cover everything since startup.
+class Metrics {
+    static final boolean SQL_TIMING = !"false".equals(System.getProperty("metrics.sql"));
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final Map<String, Operation> operations = new ConcurrentHashMap<>();
+    private static final Map<String, Timer> statements = new ConcurrentHashMap<>();
+
+    static final Operation BOOK = operation("book");
+    static final Operation SELECT_SEAT = operation("select_seat");
+    static final Operation CANCEL = operation("cancel");
+    static final Operation HOLD = operation("hold");
+    static final Operation CONFIRM_HOLD = operation("confirm_hold");
+    static final Operation SEAT_AVAILABILITY = operation("seat_availability");
+    static final Operation SEAT_MAP_LOAD = operation("seat_map_load");
+    static final Operation SEAT_MAP_PRELOAD = operation("seat_map_preload");
+    static final Operation SEAT_CHANGE_POLL = operation("seat_change_poll");
+
+    // Latency histogram with a failure count
+    static class Timer {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder failures = new LongAdder();
+
+        void record(long startNanos, boolean failed) {
+            latency.record(System.nanoTime() - startNanos);
+            if (failed) failures.increment();
+        }
+    }
+
+    // Latency histogram with a count per outcome, e.g. a BookingResult status or ERROR
+    static class Operation {
+        final String name;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+        Operation(String name) {
+            this.name = name;
+        }
+
+        void record(long startNanos, String outcome) {
+            latency.record(System.nanoTime() - startNanos);
+            outcomes.computeIfAbsent(outcome, k -> new LongAdder()).increment();
+        }
+    }
+
+    static Operation operation(String name) {
+        return operations.computeIfAbsent(name, Operation::new);
+    }
+
+    // The statement wrapped so its executions are timed under its SQL text
+    static PreparedStatement timed(PreparedStatement pstmt, String sql) {
+        if (!SQL_TIMING) return pstmt;
+        Timer timer = statements.computeIfAbsent(sql, k -> new Timer());
+        return new TimedStatement(pstmt, sql, timer);
+    }
+
+    static void writePrometheus(PrintWriter out, SeatMapRegistry seatMaps) {
+        out.println("# HELP airline_operation_seconds Latency of booking operations.");
+        out.println("# TYPE airline_operation_seconds summary");
+        for (Operation operation : operations.values()) {
+            writeSummary(out, "airline_operation_seconds", "operation", operation.name, operation.latency);
+        }
+        out.println("# HELP airline_operation_total Completed booking operations by outcome.");
+        out.println("# TYPE airline_operation_total counter");
+        for (Operation operation : operations.values()) {
+            for (Map.Entry<String, LongAdder> outcome : operation.outcomes.entrySet()) {
+                out.println("airline_operation_total{operation=\"" + operation.name + "\",outcome=\""
+                        + outcome.getKey() + "\"} " + outcome.getValue().sum());
+            }
+        }
+
+        out.println("# HELP airline_sql_seconds Latency of prepared statement executions.");
+        out.println("# TYPE airline_sql_seconds summary");
+        for (Map.Entry<String, Timer> statement : statements.entrySet()) {
+            writeSummary(out, "airline_sql_seconds", "sql", statement.getKey(), statement.getValue().latency);
+        }
+        out.println("# HELP airline_sql_failures_total Prepared statement executions that threw.");
+        out.println("# TYPE airline_sql_failures_total counter");
+        for (Map.Entry<String, Timer> statement : statements.entrySet()) {
+            out.println("airline_sql_failures_total{sql=\"" + escape(statement.getKey()) + "\"} "
+                    + statement.getValue().failures.sum());
+        }
+
+        out.println("# HELP airline_seat_holds Seat holds waiting to be confirmed or to expire.");
+        out.println("# TYPE airline_seat_holds gauge");
+        out.println("airline_seat_holds " + SeatHolds.size());
+
+        if (seatMaps != null) writeSeatMapGauges(out, seatMaps);
+        out.flush();
+    }
+
+    // Per resident flight: booked seats and estimated heap bytes, read under the flight's lock
+    private static void writeSeatMapGauges(PrintWriter out, SeatMapRegistry seatMaps) {
+        StringBuilder booked = new StringBuilder();
+        StringBuilder bytes = new StringBuilder();
+        int resident = 0;
+        for (int flightNumber : seatMaps.residentFlights()) {
+            ReentrantLock lock = ReservationEngine.lockFor(flightNumber);
+            lock.lock();
+            try {
+                SeatMap seatMap = seatMaps.getIfLoaded(flightNumber);
+                if (seatMap == null) continue;
+                resident++;
+                booked.append("airline_seat_map_booked_seats{flight=\"").append(flightNumber).append("\"} ")
+                        .append(seatMap.bookedCount()).append('\n');
+                bytes.append("airline_seat_map_bytes{flight=\"").append(flightNumber).append("\"} ")
+                        .append(seatMap.estimatedBytes()).append('\n');
+            } finally {
+                lock.unlock();
+            }
+        }
+        out.println("# HELP airline_seat_maps Seat maps resident in memory.");
+        out.println("# TYPE airline_seat_maps gauge");
+        out.println("airline_seat_maps " + resident);
+        out.println("# HELP airline_seat_map_booked_seats Booked seats in a resident seat map.");
+        out.println("# TYPE airline_seat_map_booked_seats gauge");
+        out.print(booked);
+        out.println("# HELP airline_seat_map_bytes Estimated heap footprint of a resident seat map.");
+        out.println("# TYPE airline_seat_map_bytes gauge");
+        out.print(bytes);
+    }
+
+    private static void writeSummary(PrintWriter out, String metric, String label, String value, LatencyHistogram latency) {
+        String labels = label + "=\"" + escape(value) + "\"";
+        for (double quantile : QUANTILES) {
+            out.println(metric + "{" + labels + ",quantile=\"" + quantile + "\"} " + seconds(latency.valueAt(quantile)));
+        }
+        out.println(metric + "_sum{" + labels + "} " + seconds(latency.sumNanos()));
+        out.println(metric + "_count{" + labels + "} " + latency.count());
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+    // Label values escape backslash, double quote and line feed
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    // Times the executions of a prepared statement; every other call goes straight to the driver's statement
+    private static class TimedStatement extends DelegatingPreparedStatement {
+        private final String sql;
+        private final Timer timer;
+
+        TimedStatement(PreparedStatement target, String sql, Timer timer) {
+            super(target);
+            this.sql = sql;
+            this.timer = timer;
+        }
+
+        @Override
+        public ResultSet executeQuery() throws SQLException {
+            DatabaseCallEvent event = begin();
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                ResultSet rs = target.executeQuery();
+                failed = false;
+                return rs;
+            } finally {
+                end(event, start, failed, "executeQuery");
+            }
+        }
+
+        @Override
+        public int executeUpdate() throws SQLException {
+            DatabaseCallEvent event = begin();
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                int count = target.executeUpdate();
+                failed = false;
+                return count;
+            } finally {
+                end(event, start, failed, "executeUpdate");
+            }
+        }
+
+        @Override
+        public long executeLargeUpdate() throws SQLException {
+            DatabaseCallEvent event = begin();
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                long count = target.executeLargeUpdate();
+                failed = false;
+                return count;
+            } finally {
+                end(event, start, failed, "executeLargeUpdate");
+            }
+        }
+
+        @Override
+        public boolean execute() throws SQLException {
+            DatabaseCallEvent event = begin();
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                boolean hasResultSet = target.execute();
+                failed = false;
+                return hasResultSet;
+            } finally {
+                end(event, start, failed, "execute");
+            }
+        }
+
+        @Override
+        public int[] executeBatch() throws SQLException {
+            DatabaseCallEvent event = begin();
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                int[] counts = target.executeBatch();
+                failed = false;
+                return counts;
+            } finally {
+                end(event, start, failed, "executeBatch");
+            }
+        }
+
+        @Override
+        public long[] executeLargeBatch() throws SQLException {
+            DatabaseCallEvent event = begin();
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                long[] counts = target.executeLargeBatch();
+                failed = false;
+                return counts;
+            } finally {
+                end(event, start, failed, "executeLargeBatch");
+            }
+        }
+
+        private static DatabaseCallEvent begin() {
+            DatabaseCallEvent event = new DatabaseCallEvent();
+            event.begin();
+            return event;
+        }
+
+        private void end(DatabaseCallEvent event, long start, boolean failed, String method) {
+            timer.record(start, failed);
+            event.end();
+            if (event.shouldCommit()) {
+                event.sql = sql;
+                event.method = method;
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+}
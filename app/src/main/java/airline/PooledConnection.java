@@ -0,0 +1,125 @@
+package airline;
+
+import java.sql.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// A pooled JDBC connection with its own prepared-statement cache.
+// Statements from prepare() are owned by the cache: callers close their ResultSets but never the
+// statement. close() returns the connection to the pool, rolling back any open transaction.
+// Cached statements are timed per SQL text; see Metrics.
+class PooledConnection implements AutoCloseable {
+    private static final int MAX_CACHED_STATEMENTS = 64;
+
+    final Connection connection;
+    private final ConnectionPool pool;
+    private final Map<String, PreparedStatement> statements = new StatementCache();
+    private final Map<String, PreparedStatement> keyStatements = new StatementCache();
+    private long lastUsed = System.currentTimeMillis();
+
+    PooledConnection(ConnectionPool pool, Connection connection) {
+        this.pool = pool;
+        this.connection = connection;
+    }
+
+    PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement pstmt = statements.get(sql);
+        if (pstmt == null) {
+            pstmt = Metrics.timed(connection.prepareStatement(sql), sql);
+            statements.put(sql, pstmt);
+        } else {
+            pstmt.clearParameters();
+            pstmt.clearBatch();
+        }
+        return pstmt;
+    }
+
+    // Same as prepare(), for INSERTs whose generated keys are read back
+    PreparedStatement prepareReturningKeys(String sql) throws SQLException {
+        PreparedStatement pstmt = keyStatements.get(sql);
+        if (pstmt == null) {
+            pstmt = Metrics.timed(connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS), sql);
+            keyStatements.put(sql, pstmt);
+        } else {
+            pstmt.clearParameters();
+            pstmt.clearBatch();
+        }
+        return pstmt;
+    }
+
+    // Uncached statement for one-off SQL such as DDL; the caller closes it
+    Statement createStatement() throws SQLException {
+        return connection.createStatement();
+    }
+
+    // "MySQL", "H2", ... as the driver reports it
+    String databaseProduct() throws SQLException {
+        return connection.getMetaData().getDatabaseProductName();
+    }
+
+    void begin() throws SQLException {
+        connection.setAutoCommit(false);
+    }
+
+    void commit() throws SQLException {
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    void rollback() throws SQLException {
+        connection.rollback();
+        connection.setAutoCommit(true);
+    }
+
+    long idleMillis() {
+        return System.currentTimeMillis() - lastUsed;
+    }
+
+    @Override
+    public void close() {
+        lastUsed = System.currentTimeMillis();
+        try {
+            if (!connection.getAutoCommit()) {
+                rollback();
+            }
+        } catch (SQLException e) {
+            pool.discard(this);
+            return;
+        }
+        pool.release(this);
+    }
+
+    void closeQuietly() {
+        for (PreparedStatement pstmt : statements.values()) closeQuietly(pstmt);
+        for (PreparedStatement pstmt : keyStatements.values()) closeQuietly(pstmt);
+        statements.clear();
+        keyStatements.clear();
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private static void closeQuietly(Statement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    // LRU map that closes statements as they fall out
+    private static class StatementCache extends LinkedHashMap<String, PreparedStatement> {
+        private static final long serialVersionUID = 1L;
+
+        StatementCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+            if (size() <= MAX_CACHED_STATEMENTS) return false;
+            closeQuietly(eldest.getValue());
+            return true;
+        }
+    }
+}
@@ -0,0 +1,742 @@
+package airline;
+
+import java.io.IOException;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Seat reservation shared by every booking path.
+// Seat-map changes for a flight happen under that flight's lock stripe, so bookings on different
+// flights never wait on each other. The database side of a booking is one transaction, and the
+// Flights update only succeeds while enough seats remain, so concurrent bookers cannot oversell.
+class ReservationEngine {
+    static final String SELECT_BOOKING_FOR_UPDATE_SQL = "SELECT FlightNumber, SeatsBooked FROM bookings WHERE BookingID = ? FOR UPDATE";
+    static final String DELETE_BOOKING_SQL = "DELETE FROM bookings WHERE BookingID = ?";
+    static final String RETURN_SEATS_SQL = "UPDATE Flights SET AvailableSeats = AvailableSeats + ? WHERE FlightNumber = ?";
+    static final String TAKE_SEATS_SQL = "UPDATE Flights SET AvailableSeats = AvailableSeats - ? WHERE FlightNumber = ? AND AvailableSeats >= ?";
+    static final String INSERT_BOOKING_SQL = "INSERT INTO bookings (FlightNumber, PassengerName, PassengerEmail, SeatsBooked, BookingDate) VALUES (?, ?, ?, ?, CURDATE())";
+    static final String INSERT_SEAT_SQL = "INSERT INTO seat_assignments (FlightNumber, SeatNumber, PassengerName, BookingID) VALUES (?, ?, ?, ?)";
+    static final String DELETE_BOOKING_SEATS_SQL = "DELETE FROM seat_assignments WHERE BookingID = ?";
+
+    private static final int LOCK_STRIPES = 64;
+    private static final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    static {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    static ReentrantLock lockFor(int flightNumber) {
+        return locks[Math.floorMod(flightNumber, LOCK_STRIPES)];
+    }
+
+    static BookingResult bookSeats(int flightNumber, String passengerName, String passengerEmail, int seats) throws SQLException {
+        return bookSeats(flightNumber, passengerName, passengerEmail, seats, null);
+    }
+
+    // Books seats for one party, side by side where possible; preference may be null
+    static BookingResult bookSeats(int flightNumber, String passengerName, String passengerEmail, int seats,
+                                   SeatType preference) throws SQLException {
+        long start = System.nanoTime();
+        String outcome = "ERROR";
+        try {
+            BookingLoops loops = BookingLoops.route();
+            BookingResult result = loops != null
+                    ? loops.book(new BookingRequest(flightNumber, passengerName, passengerEmail, seats, preference))
+                    : placeBooking(flightNumber, passengerName, passengerEmail, seats, preference);
+            outcome = result.status.name();
+            return result;
+        } finally {
+            Metrics.BOOK.record(start, outcome);
+        }
+    }
+
+    // Books one chosen seat; valid seat numbers run from 1 to the flight's Capacity
+    static BookingResult bookSpecificSeat(int flightNumber, int seatNumber, String passengerName,
+                                          String passengerEmail) throws SQLException {
+        long start = System.nanoTime();
+        String outcome = "ERROR";
+        try {
+            BookingLoops loops = BookingLoops.route();
+            BookingResult result = loops != null
+                    ? loops.bookSeat(new BookingRequest(flightNumber, passengerName, passengerEmail, 1, null), seatNumber)
+                    : placeSeatBooking(flightNumber, seatNumber, passengerName, passengerEmail);
+            outcome = result.status.name();
+            return result;
+        } finally {
+            Metrics.SELECT_SEAT.record(start, outcome);
+        }
+    }
+
+    // Free seat numbers from 1 up to the flight's Capacity, or null if the flight does not exist
+    static SeatAvailability availability(int flightNumber) throws SQLException {
+        long start = System.nanoTime();
+        String outcome = "ERROR";
+        try {
+            SeatAvailability result = readAvailability(flightNumber);
+            outcome = result == null ? BookingResult.Status.FLIGHT_NOT_FOUND.name() : "FOUND";
+            return result;
+        } finally {
+            Metrics.SEAT_AVAILABILITY.record(start, outcome);
+        }
+    }
+
+    // Holds chosen seats for the passenger without touching the tables; see SeatHolds.
+    // HELD with the hold ID, or why the seats cannot be held. All seats are held or none.
+    static BookingResult holdSeats(int flightNumber, int[] seatNumbers, String passengerName) throws SQLException {
+        long start = System.nanoTime();
+        String outcome = "ERROR";
+        try {
+            BookingResult result = placeHold(flightNumber, seatNumbers, passengerName);
+            outcome = result.status.name();
+            return result;
+        } finally {
+            Metrics.HOLD.record(start, outcome);
+        }
+    }
+
+    // Books a hold's seats in one transaction; HOLD_NOT_FOUND if it expired or was released
+    static BookingResult confirmHold(long holdId, String passengerEmail) throws SQLException {
+        long start = System.nanoTime();
+        String outcome = "ERROR";
+        try {
+            SeatHolds.Hold hold = SeatHolds.take(holdId);
+            BookingResult result = hold == null
+                    ? BookingResult.of(BookingResult.Status.HOLD_NOT_FOUND, 0)
+                    : persistBooking(hold.flightNumber, hold.passengerName, passengerEmail, hold.seats);
+            outcome = result.status.name();
+            return result;
+        } finally {
+            Metrics.CONFIRM_HOLD.record(start, outcome);
+        }
+    }
+
+    // Gives a hold's seats back before it expires
+    static BookingResult releaseHold(long holdId) {
+        SeatHolds.Hold hold = SeatHolds.take(holdId);
+        if (hold == null) return BookingResult.of(BookingResult.Status.HOLD_NOT_FOUND, 0);
+        releaseClaim(hold.flightNumber, hold.seats);
+        return BookingResult.holdReleased(holdId, hold.flightNumber, hold.seats);
+    }
+
+    static BookingResult cancel(int bookingId) throws SQLException {
+        long start = System.nanoTime();
+        String outcome = "ERROR";
+        try {
+            BookingLoops loops = BookingLoops.route();
+            BookingResult result;
+            if (loops == null) {
+                result = cancelBooking(bookingId);
+            } else {
+                Integer flightNumber = flightOfBooking(bookingId);
+                result = flightNumber == null
+                        ? BookingResult.of(BookingResult.Status.BOOKING_NOT_FOUND, 0)
+                        : loops.cancel(flightNumber, bookingId);
+            }
+            outcome = result.status.name();
+            return result;
+        } finally {
+            Metrics.CANCEL.record(start, outcome);
+        }
+    }
+
+    private static BookingResult placeBooking(int flightNumber, String passengerName, String passengerEmail, int seats,
+                                              SeatType preference) throws SQLException {
+        FlightInfo flight = FlightTicketBookingSystem.flightCache.get(FlightTicketBookingSystem.pool, flightNumber);
+        BookingResult rejected = checkBookable(flightNumber, flight);
+        if (rejected != null) return rejected;
+
+        int[] seatNumbers = claimFreeSeats(flightNumber, flight, passengerName, seats, preference);
+        if (seatNumbers == null) {
+            return BookingResult.of(BookingResult.Status.NOT_ENOUGH_SEATS, flightNumber);
+        }
+        return persistBooking(flightNumber, passengerName, passengerEmail, seatNumbers);
+    }
+
+    // Also run by BookingLoops on the flight's loop
+    static BookingResult placeSeatBooking(int flightNumber, int seatNumber, String passengerName,
+                                          String passengerEmail) throws SQLException {
+        FlightInfo flight = FlightTicketBookingSystem.flightCache.get(FlightTicketBookingSystem.pool, flightNumber);
+        BookingResult rejected = checkBookable(flightNumber, flight);
+        if (rejected != null) return rejected;
+
+        if (seatNumber < 1 || seatNumber > flight.capacity) {
+            return BookingResult.of(BookingResult.Status.INVALID_SEAT, flightNumber);
+        }
+
+        if (!claimSeat(flightNumber, seatNumber, passengerName)) {
+            return BookingResult.of(BookingResult.Status.SEAT_TAKEN, flightNumber);
+        }
+        return persistBooking(flightNumber, passengerName, passengerEmail, new int[]{seatNumber});
+    }
+
+    private static BookingResult placeHold(int flightNumber, int[] seatNumbers, String passengerName) throws SQLException {
+        FlightInfo flight = FlightTicketBookingSystem.flightCache.get(FlightTicketBookingSystem.pool, flightNumber);
+        BookingResult rejected = checkBookable(flightNumber, flight);
+        if (rejected != null) return rejected;
+
+        if (seatNumbers.length == 0) {
+            return BookingResult.of(BookingResult.Status.INVALID_SEAT, flightNumber);
+        }
+        for (int seatNumber : seatNumbers) {
+            if (seatNumber < 1 || seatNumber > flight.capacity) {
+                return BookingResult.of(BookingResult.Status.INVALID_SEAT, flightNumber);
+            }
+        }
+
+        if (!claimSeats(flightNumber, seatNumbers, passengerName)) {
+            return BookingResult.of(BookingResult.Status.SEAT_TAKEN, flightNumber);
+        }
+        return BookingResult.held(SeatHolds.add(flightNumber, seatNumbers, passengerName).holdId, flightNumber, seatNumbers);
+    }
+
+    private static SeatAvailability readAvailability(int flightNumber) throws SQLException {
+        FlightInfo flight = FlightTicketBookingSystem.flightCache.get(FlightTicketBookingSystem.pool, flightNumber);
+        if (flight == null) return null;
+        int totalSeats = flight.capacity;
+
+        ReentrantLock lock = lockFor(flightNumber);
+        lock.lock();
+        try {
+            SeatMap seatMap = FlightTicketBookingSystem.flightSeatTrees.get(flightNumber);
+            return new SeatAvailability(flightNumber, AircraftLayout.of(flight), totalSeats, seatMap.bookedCount(),
+                    seatMap.freeSeats(totalSeats));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Also run by BookingLoops on the flight's loop
+    static BookingResult cancelBooking(int bookingId) throws SQLException {
+        WriteBehindQueue writeBehind = FlightTicketBookingSystem.writeBehind;
+        if (writeBehind != null) {
+            BookingResult result = cancelWriteBehind(writeBehind, bookingId);
+            if (result != null) return result;
+            // Not in the seat map: settle it against the tables once they have caught up
+            writeBehind.awaitWritten();
+        }
+
+        Integer flightNumber = flightOfBooking(bookingId);
+        if (flightNumber == null) {
+            return BookingResult.of(BookingResult.Status.BOOKING_NOT_FOUND, 0);
+        }
+        // Pinned until the map drops the booking, so no snapshot sees the change logged but not applied. Taken
+        // before the transaction's connection: loading a cold map acquires a connection of its own.
+        pin(flightNumber);
+        try {
+            int[] released = deleteBooking(flightNumber, bookingId);
+            if (released == null) {
+                return BookingResult.of(BookingResult.Status.BOOKING_NOT_FOUND, 0);
+            }
+            releaseBooking(flightNumber, bookingId);
+            return BookingResult.cancelled(bookingId, flightNumber, released);
+        } finally {
+            unpin(flightNumber, 1);
+        }
+    }
+
+    // Deletes the booking and its seat rows; returns the seats it held, or null if it is gone
+    private static int[] deleteBooking(int flightNumber, int bookingId) throws SQLException {
+        List<Integer> seatNumbers = new ArrayList<>();
+
+        try (PooledConnection con = FlightTicketBookingSystem.pool.acquire()) {
+            con.begin();
+            PreparedStatement pstmt = con.prepare(SELECT_BOOKING_FOR_UPDATE_SQL);
+            pstmt.setInt(1, bookingId);
+            int seatsBooked;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) return null;
+                seatsBooked = rs.getInt("SeatsBooked");
+            }
+
+            pstmt = con.prepare(FlightTicketBookingSystem.SELECT_BOOKING_SEATS_SQL);
+            pstmt.setInt(1, bookingId);
+            try (ResultSet seatsRS = pstmt.executeQuery()) {
+                while (seatsRS.next()) {
+                    seatNumbers.add(seatsRS.getInt("SeatNumber"));
+                }
+            }
+
+            pstmt = con.prepare(DELETE_BOOKING_SEATS_SQL);
+            pstmt.setInt(1, bookingId);
+            pstmt.executeUpdate();
+
+            pstmt = con.prepare(DELETE_BOOKING_SQL);
+            pstmt.setInt(1, bookingId);
+            pstmt.executeUpdate();
+
+            pstmt = con.prepare(RETURN_SEATS_SQL);
+            pstmt.setInt(1, seatsBooked);
+            pstmt.setInt(2, flightNumber);
+            pstmt.executeUpdate();
+
+            int[] released = seatNumbers.stream().mapToInt(Integer::intValue).toArray();
+            SeatChangeLog.record(con, SeatChangeLog.CANCEL, flightNumber, bookingId, null, released);
+            con.commit();
+            FlightTicketBookingSystem.flightCache.adjustAvailableSeats(flightNumber, seatsBooked);
+            return released;
+        }
+    }
+
+    // Flight of a booking, including one not yet written in write-behind mode; null if there is none
+    static Integer flightOfBooking(int bookingId) throws SQLException {
+        WriteBehindQueue writeBehind = FlightTicketBookingSystem.writeBehind;
+        if (writeBehind != null) {
+            Integer flightNumber = writeBehind.flightOf(bookingId);
+            if (flightNumber != null) return flightNumber;
+        }
+        try (PooledConnection con = FlightTicketBookingSystem.pool.acquire()) {
+            PreparedStatement pstmt = con.prepare(WriteBehindQueue.SELECT_BOOKING_FLIGHT_SQL);
+            pstmt.setInt(1, bookingId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
+    // Cancels a booking from its seat map and queues the change; null if the map does not know the booking
+    private static BookingResult cancelWriteBehind(WriteBehindQueue writeBehind, int bookingId) throws SQLException {
+        Integer flightNumber = writeBehind.flightOf(bookingId);
+        if (flightNumber == null) {
+            return BookingResult.of(BookingResult.Status.BOOKING_NOT_FOUND, 0);
+        }
+
+        int[] seatNumbers = null;
+        long sequence;
+        SeatMapEvent event = SeatMapEvent.start();
+        ReentrantLock lock = lockFor(flightNumber);
+        lock.lock();
+        try {
+            SeatMap seatMap = FlightTicketBookingSystem.flightSeatTrees.get(flightNumber);
+            seatNumbers = seatMap.seatsOf(bookingId);
+            if (seatNumbers.length == 0) return null;
+
+            String passengerName = seatMap.passengerAt(seatNumbers[0]);
+            seatMap.releaseBooking(bookingId);
+            try {
+                sequence = writeBehind.cancelled(bookingId, flightNumber, seatNumbers);
+            } catch (IOException e) {
+                for (int seatNumber : seatNumbers) {
+                    seatMap.book(seatNumber, passengerName, bookingId);
+                }
+                throw new SQLException("Error writing booking journal: " + e.getMessage(), e);
+            }
+            seatMap.pin();
+        } finally {
+            lock.unlock();
+            event.finish(flightNumber, "release", seatNumbers == null ? 0 : seatNumbers.length);
+        }
+
+        FlightTicketBookingSystem.flightCache.adjustAvailableSeats(flightNumber, seatNumbers.length);
+        syncJournal(writeBehind, sequence);
+        return BookingResult.cancelled(bookingId, flightNumber, seatNumbers);
+    }
+
+    // Rejection for flights that do not exist or have departed, otherwise null
+    private static BookingResult checkBookable(int flightNumber, FlightInfo flight) {
+        if (flight == null) {
+            return BookingResult.of(BookingResult.Status.FLIGHT_NOT_FOUND, flightNumber);
+        }
+        if (flight.hasDeparted(LocalDate.now())) {
+            return BookingResult.of(BookingResult.Status.FLIGHT_DEPARTED, flightNumber);
+        }
+        return null;
+    }
+
+    // Writes a booking whose seats are already claimed in the seat map.
+    // The claim is given back if the transaction does not commit.
+    private static BookingResult persistBooking(int flightNumber, String passengerName, String passengerEmail,
+                                                int[] seatNumbers) throws SQLException {
+        WriteBehindQueue writeBehind = FlightTicketBookingSystem.writeBehind;
+        if (writeBehind != null) {
+            return persistWriteBehind(writeBehind, flightNumber, passengerName, passengerEmail, seatNumbers);
+        }
+
+        int bookingId = 0;
+        try (PooledConnection con = FlightTicketBookingSystem.pool.acquire()) {
+            con.begin();
+            PreparedStatement pstmt = con.prepare(TAKE_SEATS_SQL);
+            pstmt.setInt(1, seatNumbers.length);
+            pstmt.setInt(2, flightNumber);
+            pstmt.setInt(3, seatNumbers.length);
+            if (pstmt.executeUpdate() == 0) {
+                return BookingResult.of(BookingResult.Status.NOT_ENOUGH_SEATS, flightNumber);
+            }
+
+            pstmt = con.prepareReturningKeys(INSERT_BOOKING_SQL);
+            pstmt.setInt(1, flightNumber);
+            pstmt.setString(2, passengerName);
+            pstmt.setString(3, passengerEmail);
+            pstmt.setInt(4, seatNumbers.length);
+            pstmt.executeUpdate();
+            int newBookingId;
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                newBookingId = keys.next() ? keys.getInt(1) : 0;
+            }
+
+            // One batched statement for all seats; with rewriteBatchedStatements the driver
+            // sends it as a single multi-row INSERT
+            pstmt = con.prepare(INSERT_SEAT_SQL);
+            for (int seatNumber : seatNumbers) {
+                pstmt.setInt(1, flightNumber);
+                pstmt.setInt(2, seatNumber);
+                pstmt.setString(3, passengerName);
+                pstmt.setInt(4, newBookingId);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            SeatChangeLog.record(con, SeatChangeLog.BOOK, flightNumber, newBookingId, passengerName, seatNumbers);
+
+            con.commit();
+            bookingId = newBookingId;
+            FlightTicketBookingSystem.flightCache.adjustAvailableSeats(flightNumber, -seatNumbers.length);
+            return BookingResult.booked(bookingId, flightNumber, seatNumbers);
+        } finally {
+            settleClaim(flightNumber, seatNumbers, bookingId);
+        }
+    }
+
+    // Write-behind counterpart of persistBooking(): the claim's pin passes to the queue, which
+    // drops it once the booking is in the tables
+    private static BookingResult persistWriteBehind(WriteBehindQueue writeBehind, int flightNumber, String passengerName,
+                                                    String passengerEmail, int[] seatNumbers) throws SQLException {
+        int bookingId = writeBehind.nextBookingId();
+        long sequence;
+        ReentrantLock lock = lockFor(flightNumber);
+        lock.lock();
+        try {
+            SeatMap seatMap = FlightTicketBookingSystem.flightSeatTrees.getIfLoaded(flightNumber);
+            if (seatMap == null) return BookingResult.of(BookingResult.Status.FLIGHT_NOT_FOUND, flightNumber);
+            seatMap.assignBooking(bookingId, seatNumbers);
+            try {
+                sequence = writeBehind.booked(bookingId, flightNumber, passengerName, passengerEmail, seatNumbers);
+            } catch (IOException e) {
+                for (int seatNumber : seatNumbers) {
+                    seatMap.release(seatNumber);
+                }
+                seatMap.unpin();
+                throw new SQLException("Error writing booking journal: " + e.getMessage(), e);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        FlightTicketBookingSystem.flightCache.adjustAvailableSeats(flightNumber, -seatNumbers.length);
+        syncJournal(writeBehind, sequence);
+        return BookingResult.booked(bookingId, flightNumber, seatNumbers);
+    }
+
+    // The change is queued either way; a failed fsync only means it could be lost in a crash before it is written
+    private static void syncJournal(WriteBehindQueue writeBehind, long sequence) {
+        try {
+            writeBehind.sync(sequence);
+        } catch (IOException e) {
+            System.out.println("Error syncing booking journal: " + e.getMessage());
+        }
+    }
+
+    // Books many parties on one flight: seats for all of them are claimed under one lock acquisition
+    // and written in one transaction, with bookings and seat_assignments each sent as a batch.
+    // Results line up with the requests. Parties that do not fit get NOT_ENOUGH_SEATS; if the database
+    // has fewer seats left than the seat map (capacity lowered meanwhile), the whole batch falls back
+    // to one bookSeats() call per party. In write-behind mode each party is queued as its own booking.
+    static BookingResult[] bookBatch(int flightNumber, List<BookingRequest> requests) throws SQLException {
+        BookingResult[] results = new BookingResult[requests.size()];
+        FlightInfo flight = FlightTicketBookingSystem.flightCache.get(FlightTicketBookingSystem.pool, flightNumber);
+        BookingResult rejected = checkBookable(flightNumber, flight);
+        if (rejected != null) {
+            Arrays.fill(results, rejected);
+            return results;
+        }
+
+        int[][] claims = claimBatch(flightNumber, flight, requests);
+        int totalSeats = 0;
+        for (int i = 0; i < claims.length; i++) {
+            if (claims[i] == null) {
+                results[i] = BookingResult.of(BookingResult.Status.NOT_ENOUGH_SEATS, flightNumber);
+            } else {
+                totalSeats += claims[i].length;
+            }
+        }
+        if (totalSeats == 0) {
+            settleBatch(flightNumber, claims, null);
+            return results;
+        }
+
+        WriteBehindQueue writeBehind = FlightTicketBookingSystem.writeBehind;
+        if (writeBehind != null) {
+            // One pin per booking, as persistWriteBehind() expects, in place of the batch's single pin
+            repin(flightNumber, claims);
+            for (int i = 0; i < claims.length; i++) {
+                if (claims[i] == null) continue;
+                BookingRequest request = requests.get(i);
+                results[i] = persistWriteBehind(writeBehind, flightNumber, request.passengerName, request.passengerEmail, claims[i]);
+            }
+            return results;
+        }
+
+        int[] bookingIds = new int[claims.length];
+        boolean committed = false;
+        try (PooledConnection con = FlightTicketBookingSystem.pool.acquire()) {
+            con.begin();
+            PreparedStatement pstmt = con.prepare(TAKE_SEATS_SQL);
+            pstmt.setInt(1, totalSeats);
+            pstmt.setInt(2, flightNumber);
+            pstmt.setInt(3, totalSeats);
+            if (pstmt.executeUpdate() == 0) {
+                con.rollback();
+            } else {
+                pstmt = con.prepareReturningKeys(INSERT_BOOKING_SQL);
+                for (int i = 0; i < claims.length; i++) {
+                    if (claims[i] == null) continue;
+                    BookingRequest request = requests.get(i);
+                    pstmt.setInt(1, flightNumber);
+                    pstmt.setString(2, request.passengerName);
+                    pstmt.setString(3, request.passengerEmail);
+                    pstmt.setInt(4, claims[i].length);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    for (int i = 0; i < claims.length; i++) {
+                        if (claims[i] == null) continue;
+                        if (!keys.next()) throw new SQLException("Fewer generated keys than bookings in the batch");
+                        bookingIds[i] = keys.getInt(1);
+                    }
+                }
+
+                pstmt = con.prepare(INSERT_SEAT_SQL);
+                for (int i = 0; i < claims.length; i++) {
+                    if (claims[i] == null) continue;
+                    for (int seatNumber : claims[i]) {
+                        pstmt.setInt(1, flightNumber);
+                        pstmt.setInt(2, seatNumber);
+                        pstmt.setString(3, requests.get(i).passengerName);
+                        pstmt.setInt(4, bookingIds[i]);
+                        pstmt.addBatch();
+                    }
+                }
+                pstmt.executeBatch();
+                for (int i = 0; i < claims.length; i++) {
+                    if (claims[i] == null) continue;
+                    SeatChangeLog.addBatch(con, SeatChangeLog.BOOK, flightNumber, bookingIds[i],
+                            requests.get(i).passengerName, claims[i]);
+                }
+                SeatChangeLog.executeBatch(con);
+
+                con.commit();
+                committed = true;
+                FlightTicketBookingSystem.flightCache.adjustAvailableSeats(flightNumber, -totalSeats);
+            }
+        } finally {
+            settleBatch(flightNumber, claims, committed ? bookingIds : null);
+        }
+
+        for (int i = 0; i < claims.length; i++) {
+            if (claims[i] == null) continue;
+            results[i] = committed
+                    ? BookingResult.booked(bookingIds[i], flightNumber, claims[i])
+                    : bookSeats(flightNumber, requests.get(i).passengerName, requests.get(i).passengerEmail,
+                            requests.get(i).seats, requests.get(i).preference);
+        }
+        return results;
+    }
+
+    // ---------------- SEAT MAP ----------------
+    // A claim books seats in the map and pins it so it stays resident until settleClaim()
+    // Null if the flight has fewer free seats than requested.
+    // The aircraft holds the seats already taken plus the flight's AvailableSeats.
+    private static int[] claimFreeSeats(int flightNumber, FlightInfo flight, String passengerName, int seats,
+                                        SeatType preference) throws SQLException {
+        SeatMapEvent event = SeatMapEvent.start();
+        ReentrantLock lock = lockFor(flightNumber);
+        lock.lock();
+        try {
+            SeatMap seatMap = FlightTicketBookingSystem.flightSeatTrees.get(flightNumber);
+            int[] seatNumbers = seatMap.bookGroup(seats, preference, passengerName, AircraftLayout.of(flight), flight.capacity);
+            if (seatNumbers != null) seatMap.pin();
+            return seatNumbers;
+        } finally {
+            lock.unlock();
+            event.finish(flightNumber, "claim", seats);
+        }
+    }
+
+    // Claims for each request in order under one lock acquisition; null where the party does not fit.
+    // The map is pinned once for the whole batch.
+    private static int[][] claimBatch(int flightNumber, FlightInfo flight, List<BookingRequest> requests) throws SQLException {
+        int[][] claims = new int[requests.size()][];
+        AircraftLayout layout = AircraftLayout.of(flight);
+        int claimed = 0;
+        SeatMapEvent event = SeatMapEvent.start();
+        ReentrantLock lock = lockFor(flightNumber);
+        lock.lock();
+        try {
+            SeatMap seatMap = FlightTicketBookingSystem.flightSeatTrees.get(flightNumber);
+            for (int i = 0; i < claims.length; i++) {
+                BookingRequest request = requests.get(i);
+                claims[i] = seatMap.bookGroup(request.seats, request.preference, request.passengerName, layout, flight.capacity);
+                if (claims[i] != null) claimed += claims[i].length;
+            }
+            seatMap.pin();
+            return claims;
+        } finally {
+            lock.unlock();
+            event.finish(flightNumber, "claim_batch", claimed);
+        }
+    }
+
+    private static boolean claimSeat(int flightNumber, int seatNumber, String passengerName) throws SQLException {
+        SeatMapEvent event = SeatMapEvent.start();
+        ReentrantLock lock = lockFor(flightNumber);
+        lock.lock();
+        try {
+            SeatMap seatMap = FlightTicketBookingSystem.flightSeatTrees.get(flightNumber);
+            if (!seatMap.book(seatNumber, passengerName)) return false;
+            seatMap.pin();
+            return true;
+        } finally {
+            lock.unlock();
+            event.finish(flightNumber, "claim", 1);
+        }
+    }
+
+    // All of the seats or none; a taken or repeated seat fails the whole claim
+    private static boolean claimSeats(int flightNumber, int[] seatNumbers, String passengerName) throws SQLException {
+        SeatMapEvent event = SeatMapEvent.start();
+        ReentrantLock lock = lockFor(flightNumber);
+        lock.lock();
+        try {
+            SeatMap seatMap = FlightTicketBookingSystem.flightSeatTrees.get(flightNumber);
+            for (int i = 0; i < seatNumbers.length; i++) {
+                if (!seatMap.book(seatNumbers[i], passengerName)) {
+                    for (int j = 0; j < i; j++) {
+                        seatMap.release(seatNumbers[j]);
+                    }
+                    return false;
+                }
+            }
+            seatMap.pin();
+            return true;
+        } finally {
+            lock.unlock();
+            event.finish(flightNumber, "claim", seatNumbers.length);
+        }
+    }
+
+    // Gives back a claim that will not be booked
+    static void releaseClaim(int flightNumber, int[] seatNumbers) {
+        settleClaim(flightNumber, seatNumbers, 0);
+    }
+
+    // Ends a claim: links the seats to the booking if it committed (bookingId != 0), gives them back otherwise.
+    // The map is gone if the flight was deleted meanwhile; there is nothing left to settle then.
+    private static void settleClaim(int flightNumber, int[] seatNumbers, int bookingId) {
+        SeatMapEvent event = SeatMapEvent.start();
+        ReentrantLock lock = lockFor(flightNumber);
+        lock.lock();
+        try {
+            SeatMap seatMap = FlightTicketBookingSystem.flightSeatTrees.getIfLoaded(flightNumber);
+            if (seatMap == null) return;
+            if (bookingId != 0) {
+                seatMap.assignBooking(bookingId, seatNumbers);
+            } else {
+                for (int seatNumber : seatNumbers) {
+                    seatMap.release(seatNumber);
+                }
+            }
+            seatMap.unpin();
+        } finally {
+            lock.unlock();
+            event.finish(flightNumber, bookingId != 0 ? "assign" : "release", seatNumbers.length);
+        }
+    }
+
+    // settleClaim() for a whole batch; bookingIds is null if the transaction did not commit
+    private static void settleBatch(int flightNumber, int[][] claims, int[] bookingIds) {
+        int settled = 0;
+        SeatMapEvent event = SeatMapEvent.start();
+        ReentrantLock lock = lockFor(flightNumber);
+        lock.lock();
+        try {
+            SeatMap seatMap = FlightTicketBookingSystem.flightSeatTrees.getIfLoaded(flightNumber);
+            if (seatMap == null) return;
+            for (int i = 0; i < claims.length; i++) {
+                if (claims[i] == null) continue;
+                settled += claims[i].length;
+                if (bookingIds != null) {
+                    seatMap.assignBooking(bookingIds[i], claims[i]);
+                } else {
+                    for (int seatNumber : claims[i]) {
+                        seatMap.release(seatNumber);
+                    }
+                }
+            }
+            seatMap.unpin();
+        } finally {
+            lock.unlock();
+            event.finish(flightNumber, bookingIds != null ? "assign" : "release", settled);
+        }
+    }
+
+    private static void repin(int flightNumber, int[][] claims) {
+        ReentrantLock lock = lockFor(flightNumber);
+        lock.lock();
+        try {
+            SeatMap seatMap = FlightTicketBookingSystem.flightSeatTrees.getIfLoaded(flightNumber);
+            if (seatMap == null) return;
+            for (int[] claim : claims) {
+                if (claim != null) seatMap.pin();
+            }
+            seatMap.unpin();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Loads the flight's seat map if needed and pins it; undo with unpin(flightNumber, 1)
+    static void pin(int flightNumber) throws SQLException {
+        ReentrantLock lock = lockFor(flightNumber);
+        lock.lock();
+        try {
+            FlightTicketBookingSystem.flightSeatTrees.get(flightNumber).pin();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Drops pins taken for changes that have since been written; the map may be gone if the flight was deleted
+    static void unpin(int flightNumber, int count) {
+        ReentrantLock lock = lockFor(flightNumber);
+        lock.lock();
+        try {
+            SeatMap seatMap = FlightTicketBookingSystem.flightSeatTrees.getIfLoaded(flightNumber);
+            if (seatMap == null) return;
+            for (int i = 0; i < count; i++) {
+                seatMap.unpin();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Frees the booking's seats in the flight's map, if it is resident; returns how many were freed
+    static int releaseBooking(int flightNumber, int bookingId) {
+        int released = 0;
+        SeatMapEvent event = SeatMapEvent.start();
+        ReentrantLock lock = lockFor(flightNumber);
+        lock.lock();
+        try {
+            SeatMap seatMap = FlightTicketBookingSystem.flightSeatTrees.getIfLoaded(flightNumber);
+            if (seatMap != null) released = seatMap.releaseBooking(bookingId).length;
+        } finally {
+            lock.unlock();
+            event.finish(flightNumber, "release", released);
+        }
+        return released;
+    }
+}
@@ -0,0 +1,270 @@
+package airline;
+
+import java.sql.*;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+// Versioned schema changes, applied in order at startup.
+// Applied versions are recorded in schema_migrations, so a restart only runs what is new.
+// MySQL commits DDL implicitly, so each migration is a single statement (or idempotent ones):
+// a failure never leaves a version half applied. Data changes run in one transaction with their version row.
+// Nodes of a cluster may start together against one database, so the pass runs under a lock and reads
+// the applied versions only once it holds it: MySQL's GET_LOCK, which the server drops if the session
+// dies, or on other databases (H2 for trials and tests) a row in schema_lock that expires after
+// LOCK_LEASE_SECONDS.
+class SchemaMigrations {
+    static final String CREATE_MIGRATIONS_TABLE_SQL = "CREATE TABLE IF NOT EXISTS schema_migrations (" +
+            "Version INT PRIMARY KEY, " +
+            "Description VARCHAR(200), " +
+            "AppliedOn TIMESTAMP)";
+    static final String SELECT_APPLIED_SQL = "SELECT Version FROM schema_migrations";
+    static final String INSERT_APPLIED_SQL = "INSERT INTO schema_migrations (Version, Description, AppliedOn) VALUES (?, ?, CURRENT_TIMESTAMP)";
+    static final String GET_LOCK_SQL = "SELECT GET_LOCK(?, ?)";
+    static final String RELEASE_LOCK_SQL = "SELECT RELEASE_LOCK(?)";
+    static final String CREATE_LOCK_TABLE_SQL = "CREATE TABLE IF NOT EXISTS schema_lock (" +
+            "Id INT PRIMARY KEY, " +
+            "LockedUntil TIMESTAMP)";
+    static final String INSERT_LOCK_SQL = "INSERT INTO schema_lock (Id, LockedUntil) VALUES (1, ?)";
+    static final String DELETE_EXPIRED_LOCK_SQL = "DELETE FROM schema_lock WHERE Id = 1 AND LockedUntil < ?";
+    static final String DELETE_LOCK_SQL = "DELETE FROM schema_lock WHERE Id = 1";
+
+    static final String LOCK_NAME = "airline_schema";
+    static final int LOCK_WAIT_SECONDS = 300;
+    static final int LOCK_LEASE_SECONDS = 600;
+
+    private static final Migration[] MIGRATIONS = {
+            new Migration(1, "Create Flights",
+                    "CREATE TABLE IF NOT EXISTS Flights (" +
+                            "FlightNumber INT PRIMARY KEY AUTO_INCREMENT, " +
+                            "Source VARCHAR(100), " +
+                            "Destination VARCHAR(100), " +
+                            "DepartureTime TIME, " +
+                            "ArrivalTime TIME, " +
+                            "FlightDate DATE, " +
+                            "AvailableSeats INT, " +
+                            "Price DOUBLE)"),
+            new Migration(2, "Create bookings",
+                    "CREATE TABLE IF NOT EXISTS bookings (" +
+                            "BookingID INT PRIMARY KEY AUTO_INCREMENT, " +
+                            "FlightNumber INT, " +
+                            "PassengerName VARCHAR(100), " +
+                            "PassengerEmail VARCHAR(100), " +
+                            "SeatsBooked INT, " +
+                            "BookingDate DATE, " +
+                            "SpecialRequests TEXT)"),
+            new Migration(3, "Create seat_assignments",
+                    "CREATE TABLE IF NOT EXISTS seat_assignments (" +
+                            "FlightNumber INT, " +
+                            "SeatNumber INT, " +
+                            "PassengerName VARCHAR(100), " +
+                            "PRIMARY KEY (FlightNumber, SeatNumber))"),
+
+            // deleteFlight removes a flight's bookings by FlightNumber
+            new Migration(4, "Index bookings by flight",
+                    "CREATE INDEX idx_bookings_flight ON bookings (FlightNumber)"),
+            // cancel and updateBooking find a passenger's seats on a flight
+            new Migration(5, "Index seat_assignments by flight and passenger",
+                    "CREATE INDEX idx_seats_flight_passenger ON seat_assignments (FlightNumber, PassengerName)"),
+            // Route and date lookups
+            new Migration(6, "Index Flights by route and date",
+                    "CREATE INDEX idx_flights_route_date ON Flights (Source, Destination, FlightDate)"),
+
+            // Rows left behind by deletes from before deleteFlight cleaned up after itself
+            new Migration(7, "Remove rows of deleted flights",
+                    "DELETE FROM seat_assignments WHERE FlightNumber NOT IN (SELECT FlightNumber FROM Flights)",
+                    "DELETE FROM bookings WHERE FlightNumber NOT IN (SELECT FlightNumber FROM Flights)"),
+            new Migration(8, "Foreign key bookings -> Flights",
+                    "ALTER TABLE bookings ADD CONSTRAINT fk_bookings_flight " +
+                            "FOREIGN KEY (FlightNumber) REFERENCES Flights (FlightNumber)"),
+            new Migration(9, "Foreign key seat_assignments -> Flights",
+                    "ALTER TABLE seat_assignments ADD CONSTRAINT fk_seats_flight " +
+                            "FOREIGN KEY (FlightNumber) REFERENCES Flights (FlightNumber)"),
+
+            // Seats belong to a booking rather than to a passenger name
+            new Migration(10, "Add BookingID to seat_assignments",
+                    "ALTER TABLE seat_assignments ADD COLUMN BookingID INT"),
+            // Older rows only carry the name; they go to that passenger's earliest booking on the flight
+            new Migration(11, "Link existing seat_assignments to bookings",
+                    "UPDATE seat_assignments SET BookingID = (SELECT MIN(b.BookingID) FROM bookings b " +
+                            "WHERE b.FlightNumber = seat_assignments.FlightNumber " +
+                            "AND b.PassengerName = seat_assignments.PassengerName) WHERE BookingID IS NULL"),
+            new Migration(12, "Index seat_assignments by booking",
+                    "CREATE INDEX idx_seats_booking ON seat_assignments (BookingID)"),
+            new Migration(13, "Foreign key seat_assignments -> bookings",
+                    "ALTER TABLE seat_assignments ADD CONSTRAINT fk_seats_booking " +
+                            "FOREIGN KEY (BookingID) REFERENCES bookings (BookingID)"),
+            new Migration(14, "Drop the passenger-name seat index",
+                    "DROP INDEX idx_seats_flight_passenger ON seat_assignments"),
+
+            // Aircraft seat plans; see AircraftLayout for the column formats
+            new Migration(15, "Create aircraft_layouts",
+                    "CREATE TABLE IF NOT EXISTS aircraft_layouts (" +
+                            "LayoutCode VARCHAR(20) PRIMARY KEY, " +
+                            "Description VARCHAR(100), " +
+                            "RowPattern VARCHAR(30), " +
+                            "SeatRows INT, " +
+                            "CabinClasses VARCHAR(200), " +
+                            "ExitRows VARCHAR(100))"),
+            new Migration(16, "Seed aircraft_layouts",
+                    "INSERT INTO aircraft_layouts (LayoutCode, Description, RowPattern, SeatRows, CabinClasses, ExitRows) VALUES " +
+                            "('STD6', 'Generic 6-abreast', 'WMA|AMW', 500, 'E:1-500', ''), " +
+                            "('A320', 'Airbus A320', 'WMA|AMW', 30, 'B:1-3,E:4-30', '10,11'), " +
+                            "('B738', 'Boeing 737-800', 'WMA|AMW', 32, 'B:1-2,E:3-32', '14,15'), " +
+                            "('ATR72', 'ATR 72', 'WA|AW', 18, 'E:1-18', '1'), " +
+                            "('B789', 'Boeing 787-9', 'WMA|AMA|AMW', 33, 'B:1-6,P:7-11,E:12-33', '1,12,25')"),
+            // AvailableSeats stays the count left to sell; Capacity is the aircraft's size
+            new Migration(17, "Add Capacity to Flights",
+                    "ALTER TABLE Flights ADD COLUMN Capacity INT"),
+            new Migration(18, "Add LayoutCode to Flights",
+                    "ALTER TABLE Flights ADD COLUMN LayoutCode VARCHAR(20) DEFAULT 'STD6'"),
+            new Migration(19, "Derive Capacity of existing flights",
+                    "UPDATE Flights SET LayoutCode = 'STD6' WHERE LayoutCode IS NULL",
+                    "UPDATE Flights SET Capacity = AvailableSeats + (SELECT COUNT(*) FROM seat_assignments s " +
+                            "WHERE s.FlightNumber = Flights.FlightNumber) WHERE Capacity IS NULL"),
+            new Migration(20, "Foreign key Flights -> aircraft_layouts",
+                    "ALTER TABLE Flights ADD CONSTRAINT fk_flights_layout " +
+                            "FOREIGN KEY (LayoutCode) REFERENCES aircraft_layouts (LayoutCode)"),
+            // Highest booking-journal sequence applied to the tables; see WriteBehindQueue
+            new Migration(21, "Create write_behind_state",
+                    "CREATE TABLE IF NOT EXISTS write_behind_state (" +
+                            "Id INT PRIMARY KEY, " +
+                            "LastSequence BIGINT NOT NULL)"),
+            new Migration(22, "Seed write_behind_state",
+                    "INSERT INTO write_behind_state (Id, LastSequence) VALUES (1, 0)"),
+            // One row per transaction that changed a flight's seats; see SeatChangeLog
+            new Migration(23, "Create seat_changes",
+                    "CREATE TABLE IF NOT EXISTS seat_changes (" +
+                            "ChangeID BIGINT PRIMARY KEY AUTO_INCREMENT, " +
+                            "FlightNumber INT NOT NULL, " +
+                            "ChangedAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)"),
+            new Migration(24, "Index seat_changes by time",
+                    "CREATE INDEX idx_seat_changes_time ON seat_changes (ChangedAt)"),
+            // The change itself, so other instances can apply it to their seat maps; see SeatChangeFeed.
+            // Rows from before these columns have Kind 0: the whole flight changed.
+            new Migration(25, "Add Kind to seat_changes",
+                    "ALTER TABLE seat_changes ADD COLUMN Kind TINYINT NOT NULL DEFAULT 0"),
+            new Migration(26, "Add BookingID to seat_changes",
+                    "ALTER TABLE seat_changes ADD COLUMN BookingID INT NOT NULL DEFAULT 0"),
+            new Migration(27, "Add PassengerName to seat_changes",
+                    "ALTER TABLE seat_changes ADD COLUMN PassengerName VARCHAR(100)"),
+            new Migration(28, "Add Seats to seat_changes",
+                    "ALTER TABLE seat_changes ADD COLUMN Seats VARCHAR(4000)"),
+            new Migration(29, "Add Origin to seat_changes",
+                    "ALTER TABLE seat_changes ADD COLUMN Origin VARCHAR(36)"),
+            // Seats migration 11 found no booking for keep a NULL BookingID: nothing can cancel them and a
+            // seat map load reads them as booking 0. Hand them back to their flights
+            new Migration(30, "Release seat_assignments that match no booking",
+                    "UPDATE Flights SET AvailableSeats = AvailableSeats + (SELECT COUNT(*) FROM seat_assignments s " +
+                            "WHERE s.FlightNumber = Flights.FlightNumber AND s.BookingID IS NULL) " +
+                            "WHERE FlightNumber IN (SELECT FlightNumber FROM seat_assignments WHERE BookingID IS NULL)",
+                    "DELETE FROM seat_assignments WHERE BookingID IS NULL"),
+    };
+
+    // Applies every migration not yet recorded; returns how many ran
+    static int migrate(ConnectionPool pool) throws SQLException {
+        int applied = 0;
+        try (PooledConnection con = pool.acquire(); Statement st = con.createStatement()) {
+            st.executeUpdate(CREATE_MIGRATIONS_TABLE_SQL);
+
+            boolean mysql = con.databaseProduct().toLowerCase(Locale.ROOT).matches("mysql|mariadb");
+            lock(con, st, mysql);
+            try {
+                // Read under the lock: another node may have just applied some
+                Set<Integer> done = new HashSet<>();
+                try (ResultSet rs = st.executeQuery(SELECT_APPLIED_SQL)) {
+                    while (rs.next()) {
+                        done.add(rs.getInt(1));
+                    }
+                }
+
+                for (Migration migration : MIGRATIONS) {
+                    if (done.contains(migration.version)) continue;
+
+                    // Data changes commit with their version row, so a crash cannot apply them twice
+                    int rows = 0;
+                    con.begin();
+                    try {
+                        for (String sql : migration.statements) {
+                            rows = st.executeUpdate(sql);
+                        }
+                        PreparedStatement pstmt = con.prepare(INSERT_APPLIED_SQL);
+                        pstmt.setInt(1, migration.version);
+                        pstmt.setString(2, migration.description);
+                        pstmt.executeUpdate();
+                        con.commit();
+                    } catch (SQLException e) {
+                        con.rollback();
+                        throw e;
+                    }
+
+                    System.out.println("Applied schema migration " + migration.version + ": " + migration.description
+                            + (rows > 0 ? " (" + rows + " rows)" : ""));
+                    applied++;
+                }
+            } finally {
+                unlock(con, st, mysql);
+            }
+        }
+        return applied;
+    }
+
+    // Waits up to LOCK_WAIT_SECONDS for the migration lock
+    private static void lock(PooledConnection con, Statement st, boolean mysql) throws SQLException {
+        if (mysql) {
+            PreparedStatement pstmt = con.prepare(GET_LOCK_SQL);
+            pstmt.setString(1, LOCK_NAME);
+            pstmt.setInt(2, LOCK_WAIT_SECONDS);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next() && rs.getInt(1) == 1) return;
+            }
+            throw new SQLException("Timed out waiting for another node to finish migrating the schema");
+        }
+
+        st.executeUpdate(CREATE_LOCK_TABLE_SQL);
+        long deadline = System.currentTimeMillis() + LOCK_WAIT_SECONDS * 1000L;
+        while (true) {
+            long now = System.currentTimeMillis();
+            PreparedStatement pstmt = con.prepare(DELETE_EXPIRED_LOCK_SQL);
+            pstmt.setTimestamp(1, new Timestamp(now));
+            pstmt.executeUpdate();
+            try {
+                pstmt = con.prepare(INSERT_LOCK_SQL);
+                pstmt.setTimestamp(1, new Timestamp(now + LOCK_LEASE_SECONDS * 1000L));
+                pstmt.executeUpdate();
+                return;
+            } catch (SQLIntegrityConstraintViolationException e) {
+                // Held by another node
+            }
+            if (now > deadline) throw new SQLException("Timed out waiting for another node to finish migrating the schema");
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for the schema lock", e);
+            }
+        }
+    }
+
+    private static void unlock(PooledConnection con, Statement st, boolean mysql) throws SQLException {
+        if (mysql) {
+            PreparedStatement pstmt = con.prepare(RELEASE_LOCK_SQL);
+            pstmt.setString(1, LOCK_NAME);
+            pstmt.executeQuery().close();
+        } else {
+            st.executeUpdate(DELETE_LOCK_SQL);
+        }
+    }
+
+    private static class Migration {
+        final int version;
+        final String description;
+        final String[] statements;
+
+        Migration(int version, String description, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.statements = statements;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package airline;
+
+import java.util.Arrays;
+
+// Free-seat index of one seat map, for placing a party of n passengers.
+// Each row keeps a mask of its free positions and sits in the bucket of its longest free run;
+// each seat type keeps a bitset of its free seats. A party goes to the first row whose longest run
+// is the smallest one that fits (best fit), at the start the precomputed row table ranks best, so
+// allocation costs a few bucket lookups however full the aircraft is.
+// Only the first capacity seats are allocated; the owning SeatMap reports every change.
+class SeatAllocator {
+    private final RowTables tables;
+    private final SeatMap owner;
+    private final int perRow;
+    private int capacity;
+    private int rows;
+    private int freeSeats;
+    private int[] freeMask = new int[0];
+    // [run length][bitset of rows whose longest free run has that length]
+    private final long[][] rowsByRun;
+    // [seat type][bitset of free seats, bit i = seat i + 1]
+    private final long[][] freeByType;
+
+    SeatAllocator(RowTables tables, SeatMap owner) {
+        this.tables = tables;
+        this.owner = owner;
+        this.perRow = tables.perRow;
+        this.rowsByRun = new long[perRow + 1][1];
+        this.freeByType = new long[SeatType.values().length][1];
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    int freeSeats() {
+        return freeSeats;
+    }
+
+    // Allocates from seats 1..seats only. Growing adds the free seats above the old capacity;
+    // shrinking (the flight's Capacity was lowered) withdraws the free seats above the new one.
+    void setCapacity(int seats) {
+        if (seats < capacity) {
+            for (int seat = seats + 1; seat <= capacity; seat++) {
+                withdraw(seat);
+            }
+            capacity = seats;
+            return;
+        }
+        if (seats == capacity) return;
+
+        int newRows = (seats + perRow - 1) / perRow;
+        if (newRows > rows) {
+            freeMask = Arrays.copyOf(freeMask, newRows);
+            for (int run = 1; run <= perRow; run++) {
+                rowsByRun[run] = grow(rowsByRun[run], newRows);
+            }
+            rows = newRows;
+        }
+        for (int t = 0; t < freeByType.length; t++) {
+            freeByType[t] = grow(freeByType[t], seats);
+        }
+
+        int from = capacity + 1;
+        capacity = seats;
+        for (int seat = from; seat <= seats; seat++) {
+            if (!owner.isBooked(seat)) seatFreed(seat);
+        }
+    }
+
+    void seatBooked(int seatNo) {
+        if (seatNo > capacity) return;
+        withdraw(seatNo);
+    }
+
+    // Takes the seat out of the free index if it is there
+    private void withdraw(int seatNo) {
+        int idx = seatNo - 1;
+        int row = idx / perRow;
+        int bit = 1 << (idx % perRow);
+        if ((freeMask[row] & bit) == 0) return;
+
+        setRowMask(row, freeMask[row] & ~bit);
+        freeByType[tables.layout[idx % perRow].ordinal()][idx >>> 6] &= ~(1L << idx);
+        freeSeats--;
+    }
+
+    void seatFreed(int seatNo) {
+        if (seatNo > capacity) return;
+        int idx = seatNo - 1;
+        int row = idx / perRow;
+        int bit = 1 << (idx % perRow);
+        if ((freeMask[row] & bit) != 0) return;
+
+        setRowMask(row, freeMask[row] | bit);
+        freeByType[tables.layout[idx % perRow].ordinal()][idx >>> 6] |= 1L << idx;
+        freeSeats++;
+    }
+
+    // A block of free seats for up to count passengers: {first seat number, length}, or null if no
+    // seat is free. The block holds all count seats whenever some row has room for them.
+    int[] pick(int count, SeatType preference) {
+        if (freeSeats == 0) return null;
+
+        // One passenger with a preference: straight from the type's free list
+        if (count == 1 && preference != null) {
+            int idx = nextSetBit(freeByType[preference.ordinal()], 0);
+            if (idx >= 0) return new int[]{idx + 1, 1};
+        }
+
+        if (count <= perRow) {
+            int fallbackRow = -1;
+            for (int run = count; run <= perRow; run++) {
+                for (int row = nextSetBit(rowsByRun[run], 0); row >= 0; row = nextSetBit(rowsByRun[run], row + 1)) {
+                    if (preference == null || tables.contains(freeMask[row], count, preference)) {
+                        return block(row, count, preference);
+                    }
+                    if (fallbackRow < 0) fallbackRow = row;
+                }
+            }
+            if (fallbackRow >= 0) return block(fallbackRow, count, preference);
+        }
+
+        // No row fits the whole party: hand out the longest run left
+        for (int run = Math.min(count, perRow); run > 0; run--) {
+            int row = nextSetBit(rowsByRun[run], 0);
+            if (row >= 0) return block(row, run, preference);
+        }
+        return null;
+    }
+
+    long estimatedBytes() {
+        return 64 + freeMask.length * 4L + (rowsByRun.length + freeByType.length) * (16L + rowsByRun[0].length * 8L);
+    }
+
+    private int[] block(int row, int length, SeatType preference) {
+        int start = tables.bestStart(freeMask[row], length, preference);
+        return new int[]{row * perRow + start + 1, length};
+    }
+
+    private void setRowMask(int row, int mask) {
+        int oldRun = tables.longestRun[freeMask[row]];
+        int newRun = tables.longestRun[mask];
+        freeMask[row] = mask;
+        if (oldRun == newRun) return;
+        if (oldRun > 0) rowsByRun[oldRun][row >>> 6] &= ~(1L << row);
+        if (newRun > 0) rowsByRun[newRun][row >>> 6] |= 1L << row;
+    }
+
+    private static long[] grow(long[] bits, int size) {
+        int words = Math.max(1, (size + 63) >>> 6);
+        return words <= bits.length ? bits : Arrays.copyOf(bits, Math.max(words, bits.length << 1));
+    }
+
+    private static int nextSetBit(long[] bits, int from) {
+        int word = from >>> 6;
+        if (word >= bits.length) return -1;
+        long w = bits[word] & (-1L << from);
+        while (w == 0) {
+            if (++word == bits.length) return -1;
+            w = bits[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(w);
+    }
+
+    // Lookup tables over every free-position mask of one row pattern, built once per AircraftLayout
+    static class RowTables {
+        final SeatType[] layout;
+        final int perRow;
+        // Longest run of free positions, by mask
+        final byte[] longestRun;
+        // Best start of a block of n, by [mask][n][preference + 1]; -1 when the block does not fit
+        private final byte[][][] bestStart;
+        // Whether that best start covers a seat of the preferred type
+        private final boolean[][][] covers;
+
+        RowTables(SeatType[] layout) {
+            this.layout = layout;
+            this.perRow = layout.length;
+            int masks = 1 << perRow;
+            int prefs = SeatType.values().length + 1;
+            longestRun = new byte[masks];
+            bestStart = new byte[masks][perRow + 1][prefs];
+            covers = new boolean[masks][perRow + 1][prefs];
+
+            for (int mask = 0; mask < masks; mask++) {
+                int run = 0;
+                for (int p = 0; p < perRow; p++) {
+                    run = (mask & (1 << p)) != 0 ? run + 1 : 0;
+                    longestRun[mask] = (byte) Math.max(longestRun[mask], run);
+                }
+                for (int n = 1; n <= perRow; n++) {
+                    for (int pref = 0; pref < prefs; pref++) {
+                        rank(mask, n, pref == 0 ? null : SeatType.values()[pref - 1]);
+                    }
+                }
+            }
+        }
+
+        int bestStart(int mask, int n, SeatType preference) {
+            return bestStart[mask][n][preference == null ? 0 : preference.ordinal() + 1];
+        }
+
+        boolean contains(int mask, int n, SeatType preference) {
+            return covers[mask][n][preference.ordinal() + 1];
+        }
+
+        // Ranks the starts of a block of n: covering the preferred type first, then a block that
+        // sits at the edge of its free run (so the rest of the run stays in one piece), then leftmost
+        private void rank(int mask, int n, SeatType preference) {
+            int pref = preference == null ? 0 : preference.ordinal() + 1;
+            int best = -1;
+            int bestScore = Integer.MAX_VALUE;
+            boolean bestCovers = false;
+            int block = (1 << n) - 1;
+            for (int s = 0; s + n <= perRow; s++) {
+                if ((mask & (block << s)) != block << s) continue;
+
+                boolean hasType = false;
+                for (int p = s; p < s + n && preference != null; p++) {
+                    hasType |= layout[p] == preference;
+                }
+                boolean atEdge = s == 0 || (mask & (1 << (s - 1))) == 0
+                        || s + n == perRow || (mask & (1 << (s + n))) == 0;
+                int score = (preference != null && !hasType ? 2 : 0) + (atEdge ? 0 : 1);
+                if (score < bestScore) {
+                    best = s;
+                    bestScore = score;
+                    bestCovers = hasType;
+                }
+            }
+            bestStart[mask][n][pref] = (byte) best;
+            covers[mask][n][pref] = bestCovers;
+        }
+    }
+}
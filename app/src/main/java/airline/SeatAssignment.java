@@ -0,0 +1,16 @@
+package airline;
+
+// One seat_assignments row
+class SeatAssignment {
+    final int flightNumber;
+    final int seatNumber;
+    final String passengerName;
+    final int bookingId;
+
+    SeatAssignment(int flightNumber, int seatNumber, String passengerName, int bookingId) {
+        this.flightNumber = flightNumber;
+        this.seatNumber = seatNumber;
+        this.passengerName = passengerName;
+        this.bookingId = bookingId;
+    }
+}
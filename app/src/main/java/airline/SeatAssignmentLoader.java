@@ -0,0 +1,98 @@
+package airline;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Startup load of seat_assignments into seat maps.
+// Rows for flights that have not departed are streamed through a forward-only cursor ordered by
+// FlightNumber, so only one flight's rows are buffered at a time; each finished flight's seat map
+// is built on the fork-join pool while the cursor moves on.
+class SeatAssignmentLoader {
+    static final String SELECT_ACTIVE_SEATS_SQL = "SELECT s.FlightNumber, s.SeatNumber, s.PassengerName, s.BookingID " +
+            "FROM seat_assignments s JOIN Flights f ON f.FlightNumber = s.FlightNumber " +
+            "WHERE f.FlightDate >= CURDATE() ORDER BY s.FlightNumber";
+
+    private static final int FETCH_SIZE = 1000;
+
+    // Returns the number of flights loaded
+    static int load(ConnectionPool pool, SeatMapRegistry target) throws SQLException {
+        long start = System.nanoTime();
+        String outcome = "ERROR";
+        try {
+            int flights = loadAll(pool, target);
+            outcome = "LOADED";
+            return flights;
+        } finally {
+            Metrics.SEAT_MAP_PRELOAD.record(start, outcome);
+        }
+    }
+
+    private static int loadAll(ConnectionPool pool, SeatMapRegistry target) throws SQLException {
+        ForkJoinPool workers = ForkJoinPool.commonPool();
+        List<ForkJoinTask<?>> builds = new ArrayList<>();
+
+        try (PooledConnection con = pool.acquire()) {
+            PreparedStatement pstmt = con.prepare(SELECT_ACTIVE_SEATS_SQL);
+            pstmt.setFetchSize(FETCH_SIZE);
+
+            FlightRows rows = null;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int flightNumber = rs.getInt(1);
+                    if (rows == null || rows.flightNumber != flightNumber) {
+                        if (rows != null) builds.add(workers.submit(rows.builder(target)));
+                        rows = new FlightRows(flightNumber);
+                    }
+                    rows.add(rs.getInt(2), rs.getString(3), rs.getInt(4));
+                }
+            }
+            if (rows != null) builds.add(workers.submit(rows.builder(target)));
+        }
+
+        for (ForkJoinTask<?> build : builds) {
+            build.join();
+        }
+        return builds.size();
+    }
+
+    // Buffered rows of one flight
+    private static class FlightRows {
+        final int flightNumber;
+        int[] seats = new int[16];
+        String[] names = new String[16];
+        int[] bookingIds = new int[16];
+        int size;
+        int maxSeat;
+
+        FlightRows(int flightNumber) {
+            this.flightNumber = flightNumber;
+        }
+
+        void add(int seatNumber, String passengerName, int bookingId) {
+            if (size == seats.length) {
+                seats = Arrays.copyOf(seats, size << 1);
+                names = Arrays.copyOf(names, size << 1);
+                bookingIds = Arrays.copyOf(bookingIds, size << 1);
+            }
+            seats[size] = seatNumber;
+            names[size] = passengerName;
+            bookingIds[size] = bookingId;
+            size++;
+            maxSeat = Math.max(maxSeat, seatNumber);
+        }
+
+        Runnable builder(SeatMapRegistry target) {
+            return () -> {
+                SeatMap seatMap = new SeatMap(maxSeat);
+                for (int i = 0; i < size; i++) {
+                    seatMap.book(seats[i], names[i], bookingIds[i]);
+                }
+                target.put(flightNumber, seatMap);
+            };
+        }
+    }
+}
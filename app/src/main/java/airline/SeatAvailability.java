@@ -0,0 +1,18 @@
+package airline;
+
+// Seat availability of one flight at a point in time
+class SeatAvailability {
+    final int flightNumber;
+    final AircraftLayout layout;
+    final int totalSeats;
+    final int bookedSeats;
+    final int[] freeSeats;
+
+    SeatAvailability(int flightNumber, AircraftLayout layout, int totalSeats, int bookedSeats, int[] freeSeats) {
+        this.flightNumber = flightNumber;
+        this.layout = layout;
+        this.totalSeats = totalSeats;
+        this.bookedSeats = bookedSeats;
+        this.freeSeats = freeSeats;
+    }
+}
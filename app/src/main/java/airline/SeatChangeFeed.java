@@ -0,0 +1,190 @@
+package airline;
+
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Keeps the seat maps in step with other instances writing to the same database by tailing seat_changes
+// every -Dseat.changes.poll.millis (default 500; 0 turns it off). A poll is a primary-key range scan
+// from the last ChangeID read. This process's own changes are skipped. Another instance's change is applied
+// to the flight's map if it is resident; a map loaded later reads it from the tables anyway, so applying
+// is idempotent. A change that does not fit the map (a seat held by another booking) means the map missed
+// something: the map is dropped and reloads on next use, or once it is unpinned if a booking is using it.
+// The flight's cached row is re-read after each change.
+// ChangeIDs are handed out at insert but become visible at commit, so a lower ID can show up after a
+// higher one was read. Skipped IDs are looked for again for GAP_MILLIS; one that never shows up belonged
+// to a transaction that rolled back.
+class SeatChangeFeed implements AutoCloseable {
+    static final int BATCH = 1000;
+    static final long GAP_MILLIS = 10_000;
+    static final int MAX_GAPS = 10_000;
+
+    private final ConnectionPool pool;
+    private final FlightCache cache;
+    private final SeatMapRegistry registry;
+    private final long pollMillis;
+    // Highest ChangeID read
+    private long highWater;
+    // ChangeIDs skipped over, with when they were first missed
+    private final TreeMap<Long, Long> gaps = new TreeMap<>();
+    // Flights whose map missed a change while pinned
+    private final Set<Integer> stale = new HashSet<>();
+    private ScheduledExecutorService scheduler;
+
+    private SeatChangeFeed(ConnectionPool pool, FlightCache cache, SeatMapRegistry registry, long pollMillis,
+                           long highWater) {
+        this.pool = pool;
+        this.cache = cache;
+        this.registry = registry;
+        this.pollMillis = pollMillis;
+        this.highWater = highWater;
+    }
+
+    // From -Dseat.changes.poll.millis; null when polling is off. Call before any seat map is loaded:
+    // the feed starts from the latest change at this point.
+    static SeatChangeFeed configured(ConnectionPool pool, FlightCache cache, SeatMapRegistry registry) throws SQLException {
+        long millis = Long.getLong("seat.changes.poll.millis", 500);
+        if (millis <= 0) return null;
+        return new SeatChangeFeed(pool, cache, registry, millis, SeatChangeLog.latest(pool));
+    }
+
+    void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "seat-change-feed");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+            } catch (SQLException e) {
+                System.out.println("Error reading seat changes: " + e.getMessage());
+            }
+        }, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Returns the number of other instances' changes applied
+    synchronized int poll() throws SQLException {
+        long start = System.nanoTime();
+        String outcome = "ERROR";
+        try {
+            long now = System.currentTimeMillis();
+            gaps.values().removeIf(missedAt -> now - missedAt > GAP_MILLIS);
+
+            Set<Integer> changedFlights = new HashSet<>();
+            int applied = 0;
+            long from = gaps.isEmpty() ? highWater : Math.min(highWater, gaps.firstKey() - 1);
+            List<SeatChangeLog.Change> changes;
+            do {
+                changes = SeatChangeLog.changesAfter(pool, from, BATCH);
+                for (SeatChangeLog.Change change : changes) {
+                    from = change.changeId;
+                    if (change.changeId <= highWater) {
+                        // Read before, unless it is a gap filling in
+                        if (gaps.remove(change.changeId) == null) continue;
+                    } else {
+                        for (long id = highWater + 1; id < change.changeId && gaps.size() < MAX_GAPS; id++) {
+                            gaps.put(id, now);
+                        }
+                        highWater = change.changeId;
+                    }
+                    if (SeatChangeLog.ORIGIN.equals(change.origin)) continue;
+                    apply(change);
+                    changedFlights.add(change.flightNumber);
+                    applied++;
+                }
+            } while (changes.size() == BATCH);
+
+            dropStaleMaps();
+            for (int flightNumber : changedFlights) {
+                cache.refresh(pool, flightNumber);
+            }
+            outcome = applied > 0 ? "APPLIED" : "IDLE";
+            return applied;
+        } finally {
+            Metrics.SEAT_CHANGE_POLL.record(start, outcome);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    private void apply(SeatChangeLog.Change change) {
+        SeatMapEvent event = SeatMapEvent.start();
+        ReentrantLock lock = ReservationEngine.lockFor(change.flightNumber);
+        lock.lock();
+        try {
+            SeatMap seatMap = registry.getIfLoaded(change.flightNumber);
+            if (seatMap == null) return;
+            boolean fits;
+            switch (change.kind) {
+                case SeatChangeLog.BOOK:
+                    fits = book(seatMap, change);
+                    break;
+                case SeatChangeLog.CANCEL:
+                    seatMap.releaseBooking(change.bookingId);
+                    fits = true;
+                    break;
+                case SeatChangeLog.RENAME:
+                    seatMap.renameBooking(change.bookingId, change.passengerName);
+                    fits = true;
+                    break;
+                default:
+                    fits = false;
+            }
+            if (!fits) drop(change.flightNumber, seatMap);
+        } finally {
+            lock.unlock();
+            event.finish(change.flightNumber, "follow", change.seats.length);
+        }
+    }
+
+    // Books the change's seats that are still free; false if one is held by anything else
+    private static boolean book(SeatMap seatMap, SeatChangeLog.Change change) {
+        for (int seatNumber : change.seats) {
+            if (seatMap.isBooked(seatNumber) && seatMap.bookingAt(seatNumber) != change.bookingId) return false;
+        }
+        for (int seatNumber : change.seats) {
+            if (!seatMap.isBooked(seatNumber)) seatMap.book(seatNumber, change.passengerName, change.bookingId);
+        }
+        return true;
+    }
+
+    // Call under the flight's lock
+    private void drop(int flightNumber, SeatMap seatMap) {
+        if (seatMap.isPinned()) {
+            stale.add(flightNumber);
+        } else {
+            registry.remove(flightNumber);
+        }
+    }
+
+    private void dropStaleMaps() {
+        Iterator<Integer> flights = stale.iterator();
+        while (flights.hasNext()) {
+            int flightNumber = flights.next();
+            ReentrantLock lock = ReservationEngine.lockFor(flightNumber);
+            lock.lock();
+            try {
+                SeatMap seatMap = registry.getIfLoaded(flightNumber);
+                if (seatMap == null) {
+                    flights.remove();
+                } else if (!seatMap.isPinned()) {
+                    registry.remove(flightNumber);
+                    flights.remove();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
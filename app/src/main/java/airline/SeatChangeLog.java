@@ -0,0 +1,169 @@
+package airline;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// The seat_changes table: every transaction that changes a flight's seat_assignments adds a row per
+// change, saying what changed (a booking made, cancelled or renamed, or the whole flight) and which
+// process made it, so other instances can apply it to their seat maps (SeatChangeFeed). ChangeID only
+// grows, so "changes after ChangeID n" is a cheap range scan; seat map snapshots use it as their
+// high-water mark. Rows older than RETENTION_DAYS are pruned by SeatChangePruner.
+class SeatChangeLog {
+    // Kinds of change
+    static final int FLIGHT = 0;
+    static final int BOOK = 1;
+    static final int CANCEL = 2;
+    static final int RENAME = 3;
+
+    // Marks this process's rows, which its own maps already reflect
+    static final String ORIGIN = UUID.randomUUID().toString();
+
+    static final String INSERT_CHANGE_SQL = "INSERT INTO seat_changes (FlightNumber, Kind, BookingID, PassengerName, Seats, Origin) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+    static final String SELECT_LATEST_SQL = "SELECT COALESCE(MAX(ChangeID), 0) FROM seat_changes";
+    static final String SELECT_CHANGED_AT_SQL = "SELECT ChangedAt FROM seat_changes WHERE ChangeID = ?";
+    static final String SELECT_CHANGED_FLIGHTS_SQL = "SELECT DISTINCT FlightNumber FROM seat_changes WHERE ChangeID > ? OR ChangedAt >= ?";
+    static final String SELECT_CHANGES_SQL = "SELECT ChangeID, FlightNumber, Kind, BookingID, PassengerName, Seats, Origin " +
+            "FROM seat_changes WHERE ChangeID > ? ORDER BY ChangeID LIMIT ?";
+    static final String PRUNE_SQL = "DELETE FROM seat_changes WHERE ChangedAt < ?";
+
+    static final int RETENTION_DAYS = 7;
+
+    // A row of seat_changes
+    static class Change {
+        final long changeId;
+        final int flightNumber;
+        final int kind;
+        final int bookingId;
+        final String passengerName;
+        final int[] seats;
+        final String origin;
+
+        Change(long changeId, int flightNumber, int kind, int bookingId, String passengerName, int[] seats, String origin) {
+            this.changeId = changeId;
+            this.flightNumber = flightNumber;
+            this.kind = kind;
+            this.bookingId = bookingId;
+            this.passengerName = passengerName;
+            this.seats = seats;
+            this.origin = origin;
+        }
+    }
+
+    // A change to the whole flight, e.g. its deletion; other instances drop their map of it
+    static void record(PooledConnection con, int flightNumber) throws SQLException {
+        record(con, FLIGHT, flightNumber, 0, null, null);
+    }
+
+    // Call inside the transaction that changes the flight's seats. seats is null for RENAME and FLIGHT.
+    static void record(PooledConnection con, int kind, int flightNumber, int bookingId, String passengerName,
+                       int[] seats) throws SQLException {
+        PreparedStatement pstmt = con.prepare(INSERT_CHANGE_SQL);
+        bind(pstmt, kind, flightNumber, bookingId, passengerName, seats);
+        pstmt.executeUpdate();
+    }
+
+    // Same as record(), added to the statement's batch; send the batch with executeBatch()
+    static void addBatch(PooledConnection con, int kind, int flightNumber, int bookingId, String passengerName,
+                         int[] seats) throws SQLException {
+        PreparedStatement pstmt = con.prepare(INSERT_CHANGE_SQL);
+        bind(pstmt, kind, flightNumber, bookingId, passengerName, seats);
+        pstmt.addBatch();
+    }
+
+    static void executeBatch(PooledConnection con) throws SQLException {
+        con.prepare(INSERT_CHANGE_SQL).executeBatch();
+    }
+
+    private static void bind(PreparedStatement pstmt, int kind, int flightNumber, int bookingId, String passengerName,
+                             int[] seats) throws SQLException {
+        pstmt.setInt(1, flightNumber);
+        pstmt.setInt(2, kind);
+        pstmt.setInt(3, bookingId);
+        pstmt.setString(4, passengerName);
+        pstmt.setString(5, seats == null ? null : joinSeats(seats));
+        pstmt.setString(6, ORIGIN);
+    }
+
+    // Up to limit changes after changeId, oldest first
+    static List<Change> changesAfter(ConnectionPool pool, long changeId, int limit) throws SQLException {
+        List<Change> changes = new ArrayList<>();
+        try (PooledConnection con = pool.acquire()) {
+            PreparedStatement pstmt = con.prepare(SELECT_CHANGES_SQL);
+            pstmt.setLong(1, changeId);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    changes.add(new Change(rs.getLong("ChangeID"), rs.getInt("FlightNumber"), rs.getInt("Kind"),
+                            rs.getInt("BookingID"), rs.getString("PassengerName"), splitSeats(rs.getString("Seats")),
+                            rs.getString("Origin")));
+                }
+            }
+        }
+        return changes;
+    }
+
+    static long latest(ConnectionPool pool) throws SQLException {
+        try (PooledConnection con = pool.acquire(); ResultSet rs = con.prepare(SELECT_LATEST_SQL).executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    // Flights with a change after changeId, or with one written up to windowMillis before it: such a
+    // change can have a lower ID yet become visible only later, when its transaction commits
+    static Set<Integer> flightsChangedAfter(ConnectionPool pool, long changeId, long windowMillis) throws SQLException {
+        Set<Integer> flights = new HashSet<>();
+        try (PooledConnection con = pool.acquire()) {
+            // Measured on the database's clock, which stamped the rows; null (matching nothing) without such a row
+            Timestamp since = null;
+            PreparedStatement pstmt = con.prepare(SELECT_CHANGED_AT_SQL);
+            pstmt.setLong(1, changeId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) since = new Timestamp(rs.getTimestamp(1).getTime() - windowMillis);
+            }
+
+            pstmt = con.prepare(SELECT_CHANGED_FLIGHTS_SQL);
+            pstmt.setLong(1, changeId);
+            pstmt.setTimestamp(2, since);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    flights.add(rs.getInt(1));
+                }
+            }
+        }
+        return flights;
+    }
+
+    // Seat numbers as "12,13,14"
+    private static String joinSeats(int[] seats) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < seats.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(seats[i]);
+        }
+        return sb.toString();
+    }
+
+    private static int[] splitSeats(String seats) {
+        if (seats == null || seats.isEmpty()) return new int[0];
+        String[] parts = seats.split(",");
+        int[] result = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = Integer.parseInt(parts[i]);
+        }
+        return result;
+    }
+
+    // Returns the number of rows removed
+    static int prune(ConnectionPool pool) throws SQLException {
+        try (PooledConnection con = pool.acquire()) {
+            PreparedStatement pstmt = con.prepare(PRUNE_SQL);
+            pstmt.setTimestamp(1, new Timestamp(System.currentTimeMillis() - RETENTION_DAYS * 86_400_000L));
+            return pstmt.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package airline;
+
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Deletes seat_changes rows older than SeatChangeLog.RETENTION_DAYS once at startup and then every
+// -Dseat.changes.prune.minutes (default 60). Every booking, cancellation and rename adds a row, so this
+// runs whether or not anything reads the table. Instances sharing a database each prune; the deletes
+// are idempotent.
+class SeatChangePruner implements AutoCloseable {
+    private final ScheduledExecutorService scheduler;
+
+    private SeatChangePruner(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    static SeatChangePruner start(ConnectionPool pool) {
+        long minutes = Math.max(1, Long.getLong("seat.changes.prune.minutes", 60));
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "seat-change-pruner");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                int removed = SeatChangeLog.prune(pool);
+                if (removed > 0) System.out.println("Pruned " + removed + " old seat changes");
+            } catch (SQLException e) {
+                System.out.println("Error pruning seat changes: " + e.getMessage());
+            }
+        }, 0, minutes, TimeUnit.MINUTES);
+        return new SeatChangePruner(scheduler);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,92 @@
+package airline;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Seats held for a passenger who is still deciding. A hold is a claim in the flight's seat map (taken,
+// pinned, no booking id) and nothing else: the tables only change if the hold is confirmed. Holds that
+// are neither confirmed nor released give their seats back after -Dseat.hold.seconds (default 300),
+// timed by a wheel with one-second ticks.
+// A hold leaves the registry exactly once, through take() or expiry, so a confirm racing the expiry
+// either books the seats or finds the hold gone.
+class SeatHolds {
+    static final long TTL_MILLIS = Math.max(1, Long.getLong("seat.hold.seconds", 300)) * 1000;
+
+    private static final Map<Long, Hold> holds = new ConcurrentHashMap<>();
+    private static final AtomicLong lastHoldId = new AtomicLong();
+    // Hold ids are lastHoldId * idStride + idOffset; in cluster mode the offset is the node's index. Longs,
+    // so the product does not wrap on a busy node
+    private static volatile int idStride = 1;
+    private static volatile int idOffset = 0;
+
+    static class Hold {
+        final long holdId;
+        final int flightNumber;
+        final int[] seats;
+        final String passengerName;
+        final long expiresAt;
+        // Set just after the hold is registered; a take() in between leaves the expiry nothing to remove
+        volatile TimerWheel.Timeout timeout;
+
+        Hold(long holdId, int flightNumber, int[] seats, String passengerName, long expiresAt) {
+            this.holdId = holdId;
+            this.flightNumber = flightNumber;
+            this.seats = seats;
+            this.passengerName = passengerName;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    // Started on the first hold
+    private static class Wheel {
+        static final TimerWheel INSTANCE = new TimerWheel("seat-hold-expiry", 1000, 512);
+    }
+
+    // Makes every hold id of this node equal its index modulo the number of nodes
+    static void partitionIds(int nodes, int index) {
+        idStride = nodes;
+        idOffset = index;
+    }
+
+    // Registers seats already claimed in the seat map; returns the new hold
+    static Hold add(int flightNumber, int[] seats, String passengerName) {
+        Hold hold = new Hold(lastHoldId.incrementAndGet() * idStride + idOffset, flightNumber, seats, passengerName,
+                System.currentTimeMillis() + TTL_MILLIS);
+        // Registered before its expiry is scheduled, so the expiry always finds it
+        holds.put(hold.holdId, hold);
+        hold.timeout = Wheel.INSTANCE.schedule(() -> expire(hold), TTL_MILLIS);
+        return hold;
+    }
+
+    // Removes the hold so the caller can confirm or release it; null if it expired or never existed
+    static Hold take(long holdId) {
+        Hold hold = holds.remove(holdId);
+        if (hold != null && hold.timeout != null) hold.timeout.cancel();
+        return hold;
+    }
+
+    // "5 minutes", "1 minute 30 seconds", "45 seconds"
+    static String describe(long millis) {
+        long seconds = millis / 1000;
+        long minutes = seconds / 60;
+        seconds %= 60;
+        if (minutes == 0) return plural(seconds, "second");
+        if (seconds == 0) return plural(minutes, "minute");
+        return plural(minutes, "minute") + " " + plural(seconds, "second");
+    }
+
+    private static String plural(long count, String unit) {
+        return count + " " + unit + (count == 1 ? "" : "s");
+    }
+
+    static int size() {
+        return holds.size();
+    }
+
+    private static void expire(Hold hold) {
+        if (holds.remove(hold.holdId, hold)) {
+            ReservationEngine.releaseClaim(hold.flightNumber, hold.seats);
+        }
+    }
+}
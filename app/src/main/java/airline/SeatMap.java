@@ -0,0 +1,240 @@
+package airline;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Seat occupancy for one flight.
+// Occupancy is a bitset (bit i = seat i + 1), passenger names and booking ids sit in parallel arrays.
+// seatsByBooking is the reverse index, so a booking's seats are found without scanning the map.
+class SeatMap {
+    private static final int[] NO_SEATS = new int[0];
+
+    private long[] occupied;
+    private String[] passengers;
+    private int[] bookingIds;
+    private final Map<Integer, int[]> seatsByBooking = new HashMap<>();
+    // Created by the first bookGroup(), which brings the flight's layout
+    private SeatAllocator allocator;
+    private int bookedCount;
+    // In-flight bookings holding claims on this map; a pinned map is never evicted
+    private int pins;
+
+    SeatMap() {
+        this(64);
+    }
+
+    SeatMap(int capacity) {
+        int words = Math.max(1, (capacity + 63) >>> 6);
+        occupied = new long[words];
+        passengers = new String[words << 6];
+        bookingIds = new int[words << 6];
+    }
+
+    boolean isBooked(int seatNo) {
+        int idx = seatNo - 1;
+        if (idx < 0 || (idx >>> 6) >= occupied.length) return false;
+        return (occupied[idx >>> 6] & (1L << idx)) != 0;
+    }
+
+    String passengerAt(int seatNo) {
+        return isBooked(seatNo) ? passengers[seatNo - 1] : null;
+    }
+
+    // Booking id of the seat, or 0 if it is free or claimed by a booking not yet committed
+    int bookingAt(int seatNo) {
+        return isBooked(seatNo) ? bookingIds[seatNo - 1] : 0;
+    }
+
+    // Returns false if the seat was already taken
+    boolean book(int seatNo, String passengerName) {
+        if (seatNo < 1) {
+            throw new IllegalArgumentException("Invalid seat number: " + seatNo);
+        }
+        int idx = seatNo - 1;
+        ensureCapacity(seatNo);
+        long bit = 1L << idx;
+        if ((occupied[idx >>> 6] & bit) != 0) return false;
+
+        occupied[idx >>> 6] |= bit;
+        passengers[idx] = passengerName;
+        bookedCount++;
+        if (allocator != null) allocator.seatBooked(seatNo);
+        return true;
+    }
+
+    // Books a seat that belongs to a committed booking
+    boolean book(int seatNo, String passengerName, int bookingId) {
+        if (!book(seatNo, passengerName)) return false;
+        link(seatNo, bookingId);
+        return true;
+    }
+
+    // Books count seats among the first capacity seats of the layout for one party: side by side in
+    // one row when a row has room, otherwise in as few blocks as the free space allows. Books nothing
+    // and returns null if fewer than count of those seats are free.
+    int[] bookGroup(int count, SeatType preference, String passengerName, AircraftLayout layout, int capacity) {
+        if (allocator == null) allocator = new SeatAllocator(layout.rowTables, this);
+        allocator.setCapacity(capacity);
+        if (allocator.freeSeats() < count) return null;
+
+        int[] seats = new int[count];
+        int n = 0;
+        while (n < count) {
+            int[] block = allocator.pick(count - n, preference);
+            for (int i = 0; i < block[1]; i++) {
+                book(block[0] + i, passengerName);
+                seats[n++] = block[0] + i;
+            }
+        }
+        return seats;
+    }
+
+    // Records the booking a set of claimed seats ended up in
+    void assignBooking(int bookingId, int[] seatNumbers) {
+        for (int seatNo : seatNumbers) {
+            if (isBooked(seatNo)) link(seatNo, bookingId);
+        }
+    }
+
+    int[] seatsOf(int bookingId) {
+        int[] seats = seatsByBooking.get(bookingId);
+        return seats == null ? NO_SEATS : seats.clone();
+    }
+
+    // Frees every seat of the booking; returns the seats freed
+    int[] releaseBooking(int bookingId) {
+        int[] seats = seatsByBooking.remove(bookingId);
+        if (seats == null) return NO_SEATS;
+        for (int seatNo : seats) {
+            bookingIds[seatNo - 1] = 0;
+            release(seatNo);
+        }
+        return seats;
+    }
+
+    // Gives every seat of the booking to newName; returns the number of seats renamed
+    int renameBooking(int bookingId, String newName) {
+        int[] seats = seatsByBooking.get(bookingId);
+        if (seats == null) return 0;
+        for (int seatNo : seats) {
+            passengers[seatNo - 1] = newName;
+        }
+        return seats.length;
+    }
+
+    // Returns false if the seat was not booked
+    boolean release(int seatNo) {
+        if (!isBooked(seatNo)) return false;
+
+        int idx = seatNo - 1;
+        if (bookingIds[idx] != 0) unlink(seatNo, bookingIds[idx]);
+        occupied[idx >>> 6] &= ~(1L << idx);
+        passengers[idx] = null;
+        bookingIds[idx] = 0;
+        bookedCount--;
+        if (allocator != null) allocator.seatFreed(seatNo);
+        return true;
+    }
+
+    int bookedCount() {
+        return bookedCount;
+    }
+
+    // First free seat number >= fromSeat. Seats past the end of the map are always free.
+    int nextFreeSeat(int fromSeat) {
+        int idx = Math.max(fromSeat, 1) - 1;
+        int word = idx >>> 6;
+        if (word >= occupied.length) return idx + 1;
+
+        long free = ~occupied[word] & (-1L << idx);
+        while (free == 0) {
+            if (++word == occupied.length) return (word << 6) + 1;
+            free = ~occupied[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(free) + 1;
+    }
+
+    // First booked seat number >= fromSeat, or -1 if there is none
+    int nextBookedSeat(int fromSeat) {
+        int idx = Math.max(fromSeat, 1) - 1;
+        int word = idx >>> 6;
+        if (word >= occupied.length) return -1;
+
+        long booked = occupied[word] & (-1L << idx);
+        while (booked == 0) {
+            if (++word == occupied.length) return -1;
+            booked = occupied[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(booked) + 1;
+    }
+
+    // Free seat numbers from 1 up to lastSeat, in order
+    int[] freeSeats(int lastSeat) {
+        int[] free = new int[Math.max(lastSeat, 0)];
+        int count = 0;
+        for (int seat = nextFreeSeat(1); seat <= lastSeat; seat = nextFreeSeat(seat + 1)) {
+            free[count++] = seat;
+        }
+        return Arrays.copyOf(free, count);
+    }
+
+    void pin() {
+        pins++;
+    }
+
+    void unpin() {
+        pins--;
+    }
+
+    boolean isPinned() {
+        return pins > 0;
+    }
+
+    // Rough heap footprint, used for the registry's memory budget
+    long estimatedBytes() {
+        return 64 + occupied.length * 8L + passengers.length * 8L + bookedCount * 48L + seatsByBooking.size() * 64L
+                + (allocator == null ? 0 : allocator.estimatedBytes());
+    }
+
+    private void ensureCapacity(int seatNo) {
+        int words = (seatNo + 63) >>> 6;
+        if (words <= occupied.length) return;
+
+        int newWords = Math.max(words, occupied.length << 1);
+        occupied = Arrays.copyOf(occupied, newWords);
+        passengers = Arrays.copyOf(passengers, newWords << 6);
+        bookingIds = Arrays.copyOf(bookingIds, newWords << 6);
+    }
+
+    private void link(int seatNo, int bookingId) {
+        int idx = seatNo - 1;
+        if (bookingIds[idx] == bookingId) return;
+        if (bookingIds[idx] != 0) unlink(seatNo, bookingIds[idx]);
+        bookingIds[idx] = bookingId;
+
+        int[] seats = seatsByBooking.get(bookingId);
+        if (seats == null) {
+            seatsByBooking.put(bookingId, new int[]{seatNo});
+        } else {
+            seats = Arrays.copyOf(seats, seats.length + 1);
+            seats[seats.length - 1] = seatNo;
+            seatsByBooking.put(bookingId, seats);
+        }
+    }
+
+    private void unlink(int seatNo, int bookingId) {
+        int[] seats = seatsByBooking.get(bookingId);
+        if (seats == null) return;
+        int[] rest = new int[seats.length - 1];
+        int n = 0;
+        for (int seat : seats) {
+            if (seat != seatNo && n < rest.length) rest[n++] = seat;
+        }
+        if (n == 0) {
+            seatsByBooking.remove(bookingId);
+        } else {
+            seatsByBooking.put(bookingId, Arrays.copyOf(rest, n));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package airline;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR event for a change to one flight's seat map, including the wait for the flight's lock
+@Name("airline.SeatMapChange")
+@Label("Seat Map Change")
+@Category("Airline")
+@Description("Seats claimed, settled or released in a flight's seat map")
+class SeatMapEvent extends Event {
+    @Label("Flight Number")
+    int flightNumber;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Seats")
+    int seats;
+
+    static SeatMapEvent start() {
+        SeatMapEvent event = new SeatMapEvent();
+        event.begin();
+        return event;
+    }
+
+    void finish(int flightNumber, String operation, int seats) {
+        end();
+        if (!shouldCommit()) return;
+        this.flightNumber = flightNumber;
+        this.operation = operation;
+        this.seats = seats;
+        commit();
+    }
+}
@@ -0,0 +1,141 @@
+package airline;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Seat maps by flight, hydrated from seat_assignments on first access.
+// get() must be called while holding ReservationEngine.lockFor(flightNumber). When the resident
+// maps exceed the memory budget, the least recently used unpinned ones are dropped; they are
+// reloaded from the database the next time they are needed.
+class SeatMapRegistry {
+    static final String SELECT_FLIGHT_SEATS_SQL = "SELECT SeatNumber, PassengerName, BookingID FROM seat_assignments WHERE FlightNumber = ?";
+
+    private final ConnectionPool pool;
+    private final long budgetBytes;
+    private final Map<Integer, Entry> maps = new ConcurrentHashMap<>();
+    private final AtomicLong residentBytes = new AtomicLong();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    SeatMapRegistry(ConnectionPool pool, long budgetBytes) {
+        this.pool = pool;
+        this.budgetBytes = budgetBytes;
+    }
+
+    static long defaultBudgetBytes() {
+        return Long.getLong("seatmap.budget.mb", 64) << 20;
+    }
+
+    // The flight's seat map, loading it if it is not resident
+    SeatMap get(int flightNumber) throws SQLException {
+        Entry entry = maps.get(flightNumber);
+        if (entry == null) {
+            entry = new Entry(load(flightNumber));
+            maps.put(flightNumber, entry);
+            residentBytes.addAndGet(entry.bytes);
+            evictIfOverBudget(flightNumber);
+        }
+        entry.lastAccess = System.nanoTime();
+        return entry.seatMap;
+    }
+
+    // The flight's seat map if it is resident, otherwise null
+    SeatMap getIfLoaded(int flightNumber) {
+        Entry entry = maps.get(flightNumber);
+        return entry == null ? null : entry.seatMap;
+    }
+
+    void put(int flightNumber, SeatMap seatMap) {
+        Entry entry = new Entry(seatMap);
+        Entry old = maps.put(flightNumber, entry);
+        residentBytes.addAndGet(entry.bytes - (old == null ? 0 : old.bytes));
+        evictIfOverBudget(flightNumber);
+    }
+
+    // Also drops a pinned map (a deleted flight): whoever holds the pin finds the map gone and has nothing to settle
+    void remove(int flightNumber) {
+        Entry old = maps.remove(flightNumber);
+        if (old != null) residentBytes.addAndGet(-old.bytes);
+    }
+
+    int size() {
+        return maps.size();
+    }
+
+    // Flights whose maps are resident right now; a map may be evicted or loaded right after
+    List<Integer> residentFlights() {
+        return new ArrayList<>(maps.keySet());
+    }
+
+    private SeatMap load(int flightNumber) throws SQLException {
+        long start = System.nanoTime();
+        String outcome = "ERROR";
+        SeatMap seatMap = new SeatMap();
+        try (PooledConnection con = pool.acquire()) {
+            PreparedStatement pstmt = con.prepare(SELECT_FLIGHT_SEATS_SQL);
+            pstmt.setInt(1, flightNumber);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    seatMap.book(rs.getInt("SeatNumber"), rs.getString("PassengerName"), rs.getInt("BookingID"));
+                }
+            }
+            outcome = "LOADED";
+        } finally {
+            Metrics.SEAT_MAP_LOAD.record(start, outcome);
+        }
+        return seatMap;
+    }
+
+    // Drops cold maps until the resident set is back under 90% of the budget.
+    // Victims are taken with tryLock so a flight in use is skipped rather than waited on.
+    private void evictIfOverBudget(int keepFlight) {
+        if (residentBytes.get() <= budgetBytes || !evicting.compareAndSet(false, true)) return;
+        try {
+            List<Map.Entry<Integer, Entry>> entries = new ArrayList<>(maps.entrySet());
+            entries.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+
+            long total = 0;
+            for (Map.Entry<Integer, Entry> e : entries) {
+                e.getValue().bytes = e.getValue().seatMap.estimatedBytes();
+                total += e.getValue().bytes;
+            }
+
+            long target = budgetBytes / 10 * 9;
+            for (Map.Entry<Integer, Entry> e : entries) {
+                if (total <= target) break;
+                int flightNumber = e.getKey();
+                if (flightNumber == keepFlight) continue;
+
+                ReentrantLock lock = ReservationEngine.lockFor(flightNumber);
+                if (!lock.tryLock()) continue;
+                try {
+                    if (!e.getValue().seatMap.isPinned() && maps.remove(flightNumber, e.getValue())) {
+                        total -= e.getValue().bytes;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            residentBytes.set(total);
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static class Entry {
+        final SeatMap seatMap;
+        long bytes;
+        volatile long lastAccess = System.nanoTime();
+
+        Entry(SeatMap seatMap) {
+            this.seatMap = seatMap;
+            this.bytes = seatMap.estimatedBytes();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package airline;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+// Binary snapshot of the resident seat maps, so a restart does not re-read seat_assignments for every flight.
+// File layout, written through memory-mapped windows:
+//   header: int magic, int version, long high-water mark, long written-at millis, int flight count, int CRC32 of the body
+//   per flight: int flight number, int booked seats, then per booked seat in seat order:
+//     int seat number, int booking id, int name length in UTF-8 bytes (NULL_NAME, or SAME_NAME for the previous seat's name), name bytes
+// The high-water mark is the latest seat_changes ID read before the maps are copied. On restore, flights
+// with a change after it are left out and load from the tables on first use, so the snapshot only has to
+// be right for flights nobody touched since. IDs become visible at commit, so a change below the mark can
+// still have been in flight when it was read: flights changed up to SeatChangeFeed.GAP_MILLIS before the
+// mark's row are left out as well. Maps pinned by an unfinished booking are not written.
+// A snapshot goes to a temporary file that replaces the old one once it is on disk.
+class SeatMapSnapshot implements AutoCloseable {
+    static final int MAGIC = 0x534D4150;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    // The change log must still hold every row since the snapshot was taken
+    static final long MAX_AGE_MILLIS = (SeatChangeLog.RETENTION_DAYS - 1) * 86_400_000L;
+
+    private static final int WINDOW_BYTES = 4 << 20;
+    private static final int NULL_NAME = -1;
+    private static final int SAME_NAME = -2;
+
+    private final Path path;
+    private final ConnectionPool pool;
+    private final FlightCache cache;
+    private final SeatMapRegistry registry;
+    private ScheduledExecutorService scheduler;
+
+    SeatMapSnapshot(Path path, ConnectionPool pool, FlightCache cache, SeatMapRegistry registry) {
+        this.path = path;
+        this.pool = pool;
+        this.cache = cache;
+        this.registry = registry;
+    }
+
+    // From -Dseatmap.snapshot; null when snapshots are off
+    static SeatMapSnapshot configured(ConnectionPool pool, FlightCache cache, SeatMapRegistry registry) {
+        String file = System.getProperty("seatmap.snapshot");
+        return file == null ? null : new SeatMapSnapshot(Paths.get(file), pool, cache, registry);
+    }
+
+    // Writes a snapshot every -Dseatmap.snapshot.minutes (default 10) on a background thread
+    void startPeriodic() {
+        long minutes = Math.max(1, Long.getLong("seatmap.snapshot.minutes", 10));
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "seatmap-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                write();
+            } catch (IOException | SQLException e) {
+                System.out.println("Error writing seat map snapshot: " + e.getMessage());
+            }
+        }, minutes, minutes, TimeUnit.MINUTES);
+    }
+
+    // Returns the number of flights written
+    synchronized int write() throws IOException, SQLException {
+        long highWater = SeatChangeLog.latest(pool);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        int flights = 0;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedOutput out = new MappedOutput(channel, HEADER_BYTES);
+            LocalDate today = LocalDate.now();
+            for (int flightNumber : registry.residentFlights()) {
+                FlightInfo flight = cache.get(pool, flightNumber);
+                if (flight == null || flight.hasDeparted(today)) continue;
+
+                ReentrantLock lock = ReservationEngine.lockFor(flightNumber);
+                lock.lock();
+                try {
+                    SeatMap seatMap = registry.getIfLoaded(flightNumber);
+                    if (seatMap == null || seatMap.isPinned()) continue;
+                    writeFlight(out, flightNumber, seatMap);
+                    flights++;
+                } finally {
+                    lock.unlock();
+                }
+            }
+            long size = out.finish();
+            channel.truncate(size);
+
+            CRC32 crc = new CRC32();
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, size - HEADER_BYTES));
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putLong(highWater).putLong(System.currentTimeMillis())
+                    .putInt(flights).putInt((int) crc.getValue());
+            header.force();
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return flights;
+    }
+
+    // Puts the snapshot's seat maps into the registry, except for flights changed since it was written.
+    // Returns the number of flights restored, or -1 if there is no usable snapshot.
+    int restore() throws IOException, SQLException {
+        if (!Files.exists(path)) return -1;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) return ignored("unexpected file size");
+
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) return ignored("not a seat map snapshot");
+            long highWater = in.getLong();
+            long writtenAt = in.getLong();
+            int flights = in.getInt();
+            int crc = in.getInt();
+            if (System.currentTimeMillis() - writtenAt > MAX_AGE_MILLIS) return ignored("too old");
+            CRC32 check = new CRC32();
+            check.update(in.duplicate());
+            if ((int) check.getValue() != crc) return ignored("checksum mismatch");
+
+            Set<Integer> changed = SeatChangeLog.flightsChangedAfter(pool, highWater, SeatChangeFeed.GAP_MILLIS);
+            int restored = 0;
+            for (int i = 0; i < flights; i++) {
+                int flightNumber = in.getInt();
+                int seats = in.getInt();
+                SeatMap seatMap = changed.contains(flightNumber) ? null : new SeatMap();
+                String name = null;
+                for (int j = 0; j < seats; j++) {
+                    int seatNumber = in.getInt();
+                    int bookingId = in.getInt();
+                    int length = in.getInt();
+                    if (length >= 0) {
+                        byte[] bytes = new byte[length];
+                        in.get(bytes);
+                        name = new String(bytes, StandardCharsets.UTF_8);
+                    } else if (length == NULL_NAME) {
+                        name = null;
+                    }
+                    if (seatMap == null) continue;
+                    if (bookingId == 0) {
+                        seatMap.book(seatNumber, name);
+                    } else {
+                        seatMap.book(seatNumber, name, bookingId);
+                    }
+                }
+                if (seatMap != null) {
+                    registry.put(flightNumber, seatMap);
+                    restored++;
+                }
+            }
+            return restored;
+        }
+    }
+
+    // Stops the periodic writes and takes a last snapshot
+    @Override
+    public void close() throws IOException, SQLException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        write();
+    }
+
+    private int ignored(String reason) {
+        System.out.println("Ignoring seat map snapshot " + path + ": " + reason);
+        return -1;
+    }
+
+    // Called under the flight's lock
+    private static void writeFlight(MappedOutput out, int flightNumber, SeatMap seatMap) throws IOException {
+        out.reserve(8).putInt(flightNumber).putInt(seatMap.bookedCount());
+        String previous = null;
+        for (int seat = seatMap.nextBookedSeat(1); seat != -1; seat = seatMap.nextBookedSeat(seat + 1)) {
+            String name = seatMap.passengerAt(seat);
+            int bookingId = seatMap.bookingAt(seat);
+            if (name == null) {
+                out.reserve(12).putInt(seat).putInt(bookingId).putInt(NULL_NAME);
+            } else if (name.equals(previous)) {
+                out.reserve(12).putInt(seat).putInt(bookingId).putInt(SAME_NAME);
+            } else {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                out.reserve(12 + bytes.length).putInt(seat).putInt(bookingId).putInt(bytes.length).put(bytes);
+            }
+            previous = name;
+        }
+    }
+
+    // Sequential writes into a file through a mapped window that moves forward as it fills
+    private static class MappedOutput {
+        private final FileChannel channel;
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        MappedOutput(FileChannel channel, long start) throws IOException {
+            this.channel = channel;
+            map(start, WINDOW_BYTES);
+        }
+
+        // The window, with room for at least bytes more
+        ByteBuffer reserve(int bytes) throws IOException {
+            if (window.remaining() < bytes) {
+                window.force();
+                map(windowStart + window.position(), Math.max(WINDOW_BYTES, bytes));
+            }
+            return window;
+        }
+
+        // Flushes the last window; returns the end of the data
+        long finish() {
+            window.force();
+            return windowStart + window.position();
+        }
+
+        private void map(long start, int bytes) throws IOException {
+            window = channel.map(FileChannel.MapMode.READ_WRITE, start, bytes);
+            windowStart = start;
+        }
+    }
+}
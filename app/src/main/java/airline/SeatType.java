@@ -0,0 +1,27 @@
+package airline;
+
+import java.util.Locale;
+
+// Position of a seat within its row
+enum SeatType {
+    WINDOW("Window"),
+    MIDDLE("Middle"),
+    AISLE("Aisle");
+
+    final String label;
+
+    SeatType(String label) {
+        this.label = label;
+    }
+
+    // Window / Middle / Aisle in any case; null for blank or anything else
+    static SeatType parse(String text) {
+        if (text == null) return null;
+        switch (text.trim().toLowerCase(Locale.ROOT)) {
+            case "window": return WINDOW;
+            case "middle": return MIDDLE;
+            case "aisle": return AISLE;
+            default: return null;
+        }
+    }
+}
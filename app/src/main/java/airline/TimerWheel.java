@@ -0,0 +1,104 @@
+package airline;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Hashed timer wheel: one daemon thread advances a ring of slots every tickMillis and runs the tasks due
+// in the slot it reaches. schedule() and cancel() are O(1) and never take a lock, which suits many
+// short-lived timeouts that are mostly cancelled before they fire. A task runs within one tick after its
+// delay, on the wheel's thread, so it must be short. Slots are only touched by that thread; new
+// timeouts reach it through a queue.
+class TimerWheel implements AutoCloseable {
+    private final long tickNanos;
+    private final ArrayDeque<Timeout>[] slots;
+    private final int mask;
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final long startNanos = System.nanoTime();
+    private final Thread worker;
+    private volatile boolean stopped;
+
+    // A scheduled task; cancel() keeps it from running if it has not started yet
+    static class Timeout {
+        final Runnable task;
+        final long deadlineTick;
+        volatile boolean cancelled;
+
+        Timeout(Runnable task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+    }
+
+    // wheelSize is rounded up to a power of two
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TimerWheel(String name, long tickMillis, int wheelSize) {
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.slots = new ArrayDeque[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new ArrayDeque<>();
+        }
+        this.mask = size - 1;
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    Timeout schedule(Runnable task, long delayMillis) {
+        // The first tick at or after the delay, counted from the wheel's start rather than from the last
+        // tick, which would fire up to a tick early
+        long due = System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(1, delayMillis));
+        Timeout timeout = new Timeout(task, (due + tickNanos - 1) / tickNanos);
+        added.add(timeout);
+        return timeout;
+    }
+
+    @Override
+    public void close() {
+        stopped = true;
+        LockSupport.unpark(worker);
+    }
+
+    private void run() {
+        long current = 0;
+        while (!stopped) {
+            long wakeAt = startNanos + (current + 1) * tickNanos;
+            long now;
+            while ((now = System.nanoTime()) < wakeAt) {
+                LockSupport.parkNanos(this, wakeAt - now);
+                if (stopped) return;
+            }
+            current++;
+
+            Timeout timeout;
+            while ((timeout = added.poll()) != null) {
+                if (timeout.cancelled) continue;
+                // Already due (the wheel is running behind): fire it in this pass
+                slots[(int) (Math.max(timeout.deadlineTick, current) & mask)].add(timeout);
+            }
+
+            Iterator<Timeout> due = slots[(int) (current & mask)].iterator();
+            while (due.hasNext()) {
+                timeout = due.next();
+                if (timeout.cancelled) {
+                    due.remove();
+                } else if (timeout.deadlineTick <= current) {
+                    due.remove();
+                    try {
+                        timeout.task.run();
+                    } catch (RuntimeException e) {
+                        System.out.println("Error in timer task: " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,436 @@
+package airline;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Write-behind mode for bookings, enabled with -Dbooking.journal=<file>.
+// The seat maps are authoritative: a booking or cancellation changes the map, is appended to the journal
+// and fsynced (group commit), and is acknowledged. A background writer drains the bounded queue and writes
+// each batch in one transaction: cancellations, then new bookings and their seats, then one AvailableSeats
+// update per flight. A booking cancelled before it was written costs no SQL at all. The transaction also
+// records the highest journal sequence it covers in write_behind_state, so replay after a crash applies
+// exactly the changes the tables are missing.
+// Seat maps with unwritten changes stay pinned so they are never evicted and re-read from stale tables.
+// Booking IDs are handed out here, above the largest in the table, so this process must be the only one
+// writing bookings to the database.
+class WriteBehindQueue implements AutoCloseable {
+    static final String SELECT_LAST_SEQUENCE_SQL = "SELECT LastSequence FROM write_behind_state WHERE Id = 1";
+    static final String UPDATE_LAST_SEQUENCE_SQL = "UPDATE write_behind_state SET LastSequence = ? WHERE Id = 1";
+    static final String SELECT_MAX_BOOKING_ID_SQL = "SELECT COALESCE(MAX(BookingID), 0) FROM bookings";
+    static final String INSERT_BOOKING_WITH_ID_SQL = "INSERT INTO bookings (BookingID, FlightNumber, PassengerName, PassengerEmail, SeatsBooked, BookingDate) VALUES (?, ?, ?, ?, ?, CURDATE())";
+    static final String SELECT_BOOKING_FLIGHT_SQL = "SELECT FlightNumber FROM bookings WHERE BookingID = ?";
+
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final int MAX_BATCH = 1000;
+    private static final long JOURNAL_RESET_BYTES = 16L << 20;
+    private static final long RETRY_MILLIS = 1000;
+    private static final long AWAIT_FLUSH_MILLIS = 30_000;
+
+    // One journal record
+    static class Change {
+        static final byte BOOK = 1;
+        static final byte CANCEL = 2;
+
+        final byte type;
+        final int bookingId;
+        final int flightNumber;
+        final String passengerName;
+        final String passengerEmail;
+        final int[] seats;
+        long sequence;
+
+        Change(byte type, int bookingId, int flightNumber, String passengerName, String passengerEmail, int[] seats) {
+            this.type = type;
+            this.bookingId = bookingId;
+            this.flightNumber = flightNumber;
+            this.passengerName = passengerName;
+            this.passengerEmail = passengerEmail;
+            this.seats = seats;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeLong(sequence);
+            out.writeByte(type);
+            out.writeInt(bookingId);
+            out.writeInt(flightNumber);
+            out.writeUTF(passengerName);
+            out.writeUTF(passengerEmail);
+            out.writeInt(seats.length);
+            for (int seat : seats) {
+                out.writeInt(seat);
+            }
+        }
+
+        static Change readFrom(DataInputStream in) throws IOException {
+            long sequence = in.readLong();
+            byte type = in.readByte();
+            int bookingId = in.readInt();
+            int flightNumber = in.readInt();
+            String passengerName = in.readUTF();
+            String passengerEmail = in.readUTF();
+            int[] seats = new int[in.readInt()];
+            for (int i = 0; i < seats.length; i++) {
+                seats[i] = in.readInt();
+            }
+            Change change = new Change(type, bookingId, flightNumber, passengerName, passengerEmail, seats);
+            change.sequence = sequence;
+            return change;
+        }
+    }
+
+    private final ConnectionPool pool;
+    private final BookingJournal journal;
+    private final BlockingQueue<Change> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicInteger lastBookingId;
+    // Flight of every booking not yet in the bookings table
+    private final Map<Integer, Integer> unwrittenBookings = new ConcurrentHashMap<>();
+    private final Object appendLock = new Object();
+    // Guarded by appendLock
+    private long lastSequence;
+    // Guarded by this
+    private long writtenSequence;
+    private final Thread writer;
+    private volatile boolean stopping;
+
+    private WriteBehindQueue(ConnectionPool pool, BookingJournal journal, long lastSequence, int lastBookingId) {
+        this.pool = pool;
+        this.journal = journal;
+        this.lastSequence = lastSequence;
+        this.writtenSequence = lastSequence;
+        this.lastBookingId = new AtomicInteger(lastBookingId);
+        this.writer = new Thread(this::run, "booking-writer");
+        this.writer.setDaemon(true);
+    }
+
+    // Opens the journal, applies whatever the tables are missing, and starts the writer.
+    // Must run before seat maps or the flight cache are loaded.
+    static WriteBehindQueue open(ConnectionPool pool, Path journalPath) throws IOException, SQLException {
+        BookingJournal journal = BookingJournal.open(journalPath);
+        List<Change> recorded = journal.readAll();
+
+        long applied;
+        try (PooledConnection con = pool.acquire(); ResultSet rs = con.prepare(SELECT_LAST_SEQUENCE_SQL).executeQuery()) {
+            applied = rs.next() ? rs.getLong(1) : 0;
+        }
+        List<Change> missing = new ArrayList<>();
+        long lastSequence = applied;
+        for (Change change : recorded) {
+            if (change.sequence > applied) missing.add(change);
+            lastSequence = Math.max(lastSequence, change.sequence);
+        }
+        for (int from = 0; from < missing.size(); from += MAX_BATCH) {
+            write(pool, missing.subList(from, Math.min(from + MAX_BATCH, missing.size())));
+        }
+        if (!missing.isEmpty()) {
+            System.out.println("Replayed " + missing.size() + " booking changes from " + journalPath);
+        }
+        journal.reset();
+
+        int lastBookingId;
+        try (PooledConnection con = pool.acquire(); ResultSet rs = con.prepare(SELECT_MAX_BOOKING_ID_SQL).executeQuery()) {
+            lastBookingId = rs.next() ? rs.getInt(1) : 0;
+        }
+
+        WriteBehindQueue queue = new WriteBehindQueue(pool, journal, lastSequence, lastBookingId);
+        queue.writer.start();
+        return queue;
+    }
+
+    int nextBookingId() {
+        return lastBookingId.incrementAndGet();
+    }
+
+    // Flight of a booking, from the unwritten ones or the table; null if there is no such booking
+    Integer flightOf(int bookingId) throws SQLException {
+        Integer flightNumber = unwrittenBookings.get(bookingId);
+        if (flightNumber != null) return flightNumber;
+        try (PooledConnection con = pool.acquire()) {
+            PreparedStatement pstmt = con.prepare(SELECT_BOOKING_FLIGHT_SQL);
+            pstmt.setInt(1, bookingId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
+    // Records a booking whose seats are already assigned in the (pinned) seat map; returns its journal sequence
+    long booked(int bookingId, int flightNumber, String passengerName, String passengerEmail, int[] seats) throws IOException {
+        unwrittenBookings.put(bookingId, flightNumber);
+        try {
+            return append(new Change(Change.BOOK, bookingId, flightNumber, passengerName, passengerEmail, seats));
+        } catch (IOException e) {
+            unwrittenBookings.remove(bookingId);
+            throw e;
+        }
+    }
+
+    // Records a cancellation whose seats are already released from the (pinned) seat map.
+    // Called under the flight's lock so it is queued behind any earlier change to the same seats.
+    long cancelled(int bookingId, int flightNumber, int[] seats) throws IOException {
+        return append(new Change(Change.CANCEL, bookingId, flightNumber, "", "", seats));
+    }
+
+    // Returns once the change with this sequence is durable in the journal
+    void sync(long sequence) throws IOException {
+        journal.sync(sequence);
+    }
+
+    // Returns once every change recorded so far is in the tables, for callers about to read or write them directly
+    void awaitWritten() throws SQLException {
+        long target;
+        synchronized (appendLock) {
+            target = lastSequence;
+        }
+        long deadline = System.currentTimeMillis() + AWAIT_FLUSH_MILLIS;
+        synchronized (this) {
+            try {
+                while (writtenSequence < target) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) throw new SQLException("Pending bookings are not yet written to the database");
+                    wait(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for pending bookings", e);
+            }
+        }
+    }
+
+    // Journal and queue in the same order, so a batch never covers a sequence whose predecessors are still queued
+    private long append(Change change) throws IOException {
+        synchronized (appendLock) {
+            change.sequence = lastSequence + 1;
+            journal.append(change);
+            lastSequence = change.sequence;
+            try {
+                queue.put(change);
+            } catch (InterruptedException e) {
+                // Already journaled; queue it anyway rather than lose it until the next restart
+                queue.add(change);
+                Thread.currentThread().interrupt();
+            }
+            return change.sequence;
+        }
+    }
+
+    private void run() {
+        List<Change> batch = new ArrayList<>(MAX_BATCH);
+        while (!stopping || !queue.isEmpty()) {
+            try {
+                Change first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+            } catch (InterruptedException e) {
+                continue;
+            }
+
+            List<Change> remaining = batch;
+            while (true) {
+                try {
+                    write(pool, remaining);
+                    break;
+                } catch (SQLException e) {
+                    System.out.println("Error writing bookings: " + e.getMessage());
+                    if (stopping) return;   // still in the journal; replayed on the next start
+                    try {
+                        Thread.sleep(RETRY_MILLIS);
+                        remaining = unapplied(pool, batch);
+                    } catch (InterruptedException | SQLException ignored) {
+                        // retry with what we have
+                    }
+                }
+            }
+            written(batch);
+            batch.clear();
+        }
+    }
+
+    // After a batch commits: unpin its seat maps, wake waiters, and empty the journal once it holds nothing unwritten
+    private void written(List<Change> batch) {
+        Map<Integer, Integer> pinsByFlight = new HashMap<>();
+        for (Change change : batch) {
+            pinsByFlight.merge(change.flightNumber, 1, Integer::sum);
+            if (change.type == Change.BOOK) unwrittenBookings.remove(change.bookingId);
+        }
+        for (Map.Entry<Integer, Integer> flight : pinsByFlight.entrySet()) {
+            ReservationEngine.unpin(flight.getKey(), flight.getValue());
+        }
+
+        long sequence = batch.get(batch.size() - 1).sequence;
+        synchronized (this) {
+            writtenSequence = sequence;
+            notifyAll();
+        }
+        synchronized (appendLock) {
+            try {
+                if (lastSequence == sequence && journal.size() > JOURNAL_RESET_BYTES) journal.reset();
+            } catch (IOException e) {
+                System.out.println("Error resetting booking journal: " + e.getMessage());
+            }
+        }
+    }
+
+    // writeBatch(), or if the database refuses the batch for its data rather than a lost connection, one
+    // change at a time; a change refused on its own is reported and skipped so it cannot block the queue.
+    // A skipped booking's seats are freed in the seat map, which would otherwise keep them sold although
+    // the tables never got them.
+    private static void write(ConnectionPool pool, List<Change> batch) throws SQLException {
+        if (batch.isEmpty()) return;
+        try {
+            writeBatch(pool, batch);
+        } catch (SQLException e) {
+            if (isConnectionError(e)) throw e;
+            for (Change change : batch) {
+                try {
+                    writeBatch(pool, List.of(change));
+                } catch (SQLException refused) {
+                    if (isConnectionError(refused)) throw refused;
+                    System.out.println("Skipped booking change " + change.sequence + " for booking " + change.bookingId
+                            + ": " + refused.getMessage());
+                    try (PooledConnection con = pool.acquire()) {
+                        PreparedStatement pstmt = con.prepare(UPDATE_LAST_SEQUENCE_SQL);
+                        pstmt.setLong(1, change.sequence);
+                        pstmt.executeUpdate();
+                    }
+                    if (change.type == Change.BOOK) unbook(change);
+                }
+            }
+        }
+    }
+
+    // Takes a booking the tables refused back out of the seat map and the flight cache
+    private static void unbook(Change change) {
+        int released = ReservationEngine.releaseBooking(change.flightNumber, change.bookingId);
+        if (released == 0) return;
+        FlightTicketBookingSystem.flightCache.adjustAvailableSeats(change.flightNumber, released);
+        System.out.println("Released seats " + Arrays.toString(change.seats) + " of flight " + change.flightNumber
+                + " held by skipped booking " + change.bookingId);
+    }
+
+    // Changes of the batch the tables do not have yet, after a failure part-way through write()
+    private static List<Change> unapplied(ConnectionPool pool, List<Change> batch) throws SQLException {
+        long applied;
+        try (PooledConnection con = pool.acquire(); ResultSet rs = con.prepare(SELECT_LAST_SEQUENCE_SQL).executeQuery()) {
+            applied = rs.next() ? rs.getLong(1) : 0;
+        }
+        List<Change> remaining = new ArrayList<>();
+        for (Change change : batch) {
+            if (change.sequence > applied) remaining.add(change);
+        }
+        return remaining;
+    }
+
+    private static boolean isConnectionError(SQLException e) {
+        String state = e.getSQLState();
+        return e instanceof SQLTransientException || e instanceof SQLNonTransientConnectionException
+                || e instanceof SQLRecoverableException || (state != null && state.startsWith("08"));
+    }
+
+    // One transaction for the batch. A booking cancelled within the same batch is skipped entirely.
+    // Cancellations go first: their seats may already be re-booked later in the batch.
+    private static void writeBatch(ConnectionPool pool, List<Change> batch) throws SQLException {
+        Set<Integer> cancelled = new HashSet<>();
+        Set<Integer> bookedHere = new HashSet<>();
+        for (Change change : batch) {
+            if (change.type == Change.CANCEL) cancelled.add(change.bookingId);
+            else bookedHere.add(change.bookingId);
+        }
+        Map<Integer, Integer> seatDelta = new HashMap<>();
+
+        try (PooledConnection con = pool.acquire()) {
+            con.begin();
+            PreparedStatement deleteSeats = con.prepare(ReservationEngine.DELETE_BOOKING_SEATS_SQL);
+            PreparedStatement deleteBookings = con.prepare(ReservationEngine.DELETE_BOOKING_SQL);
+            List<Change> deletes = new ArrayList<>();
+            for (Change change : batch) {
+                if (change.type != Change.CANCEL || bookedHere.contains(change.bookingId)) continue;
+                deleteSeats.setInt(1, change.bookingId);
+                deleteSeats.addBatch();
+                deleteBookings.setInt(1, change.bookingId);
+                deleteBookings.addBatch();
+                deletes.add(change);
+            }
+            if (!deletes.isEmpty()) {
+                deleteSeats.executeBatch();
+                int[] deleted = deleteBookings.executeBatch();
+                for (int i = 0; i < deletes.size(); i++) {
+                    // Nothing to return for a booking that never reached the table (skipped, see write())
+                    if (deleted[i] == 0) continue;
+                    seatDelta.merge(deletes.get(i).flightNumber, deletes.get(i).seats.length, Integer::sum);
+                }
+            }
+
+            PreparedStatement insertBookings = con.prepare(INSERT_BOOKING_WITH_ID_SQL);
+            PreparedStatement insertSeats = con.prepare(ReservationEngine.INSERT_SEAT_SQL);
+            int inserts = 0;
+            for (Change change : batch) {
+                if (change.type != Change.BOOK || cancelled.contains(change.bookingId)) continue;
+                insertBookings.setInt(1, change.bookingId);
+                insertBookings.setInt(2, change.flightNumber);
+                insertBookings.setString(3, change.passengerName);
+                insertBookings.setString(4, change.passengerEmail);
+                insertBookings.setInt(5, change.seats.length);
+                insertBookings.addBatch();
+                for (int seat : change.seats) {
+                    insertSeats.setInt(1, change.flightNumber);
+                    insertSeats.setInt(2, seat);
+                    insertSeats.setString(3, change.passengerName);
+                    insertSeats.setInt(4, change.bookingId);
+                    insertSeats.addBatch();
+                }
+                seatDelta.merge(change.flightNumber, -change.seats.length, Integer::sum);
+                inserts++;
+            }
+            if (inserts > 0) {
+                insertBookings.executeBatch();
+                insertSeats.executeBatch();
+            }
+
+            PreparedStatement returnSeats = con.prepare(ReservationEngine.RETURN_SEATS_SQL);
+            for (Map.Entry<Integer, Integer> flight : seatDelta.entrySet()) {
+                if (flight.getValue() == 0) continue;
+                returnSeats.setInt(1, flight.getValue());
+                returnSeats.setInt(2, flight.getKey());
+                returnSeats.addBatch();
+            }
+            returnSeats.executeBatch();
+
+            for (Change change : batch) {
+                SeatChangeLog.addBatch(con, change.type == Change.BOOK ? SeatChangeLog.BOOK : SeatChangeLog.CANCEL,
+                        change.flightNumber, change.bookingId, change.passengerName, change.seats);
+            }
+            SeatChangeLog.executeBatch(con);
+
+            PreparedStatement pstmt = con.prepare(UPDATE_LAST_SEQUENCE_SQL);
+            pstmt.setLong(1, batch.get(batch.size() - 1).sequence);
+            pstmt.executeUpdate();
+            con.commit();
+        }
+    }
+
+    // Stops taking work, writes what is queued, and closes the journal
+    @Override
+    public void close() {
+        stopping = true;
+        try {
+            writer.join(AWAIT_FLUSH_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.out.println("Error closing booking journal: " + e.getMessage());
+        }
+    }
+}
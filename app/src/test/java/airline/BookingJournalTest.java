@@ -0,0 +1,130 @@
+package airline;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingJournalTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysEveryRecordInOrder() throws IOException {
+        Path path = dir.resolve("journal");
+        writeRecords(path, 3);
+
+        try (BookingJournal journal = BookingJournal.open(path)) {
+            List<WriteBehindQueue.Change> changes = journal.readAll();
+            assertEquals(3, changes.size());
+            for (int i = 0; i < 3; i++) {
+                WriteBehindQueue.Change change = changes.get(i);
+                assertEquals(i + 1, change.sequence);
+                assertEquals(100 + i, change.bookingId);
+                assertEquals("Passenger " + i, change.passengerName);
+                assertArrayEquals(new int[]{i + 1, i + 2}, change.seats);
+            }
+        }
+    }
+
+    @Test
+    void cutsOffARecordTornMidWrite() throws IOException {
+        Path path = dir.resolve("journal");
+        writeRecords(path, 3);
+        long intact = recordEnd(path, 2);
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(file.length() - 5);
+        }
+
+        assertReplaysTwoAndAppendsAfterThem(path, intact);
+    }
+
+    @Test
+    void cutsOffARecordWithABadChecksum() throws IOException {
+        Path path = dir.resolve("journal");
+        writeRecords(path, 3);
+        long intact = recordEnd(path, 2);
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            // A byte inside the last record's body
+            file.seek(intact + 10);
+            int b = file.read();
+            file.seek(intact + 10);
+            file.write(b ^ 0xFF);
+        }
+
+        assertReplaysTwoAndAppendsAfterThem(path, intact);
+    }
+
+    @Test
+    void cutsOffGarbageAfterTheLastRecord() throws IOException {
+        Path path = dir.resolve("journal");
+        writeRecords(path, 2);
+        long intact = Files.size(path);
+        Files.write(path, new byte[]{0x7F, 0x00, 0x00, 0x00, 0x01, 0x02}, StandardOpenOption.APPEND);
+
+        assertReplaysTwoAndAppendsAfterThem(path, intact);
+    }
+
+    @Test
+    void isEmptyAfterReset() throws IOException {
+        Path path = dir.resolve("journal");
+        writeRecords(path, 2);
+
+        try (BookingJournal journal = BookingJournal.open(path)) {
+            journal.readAll();
+            journal.reset();
+            assertEquals(0, journal.size());
+            assertTrue(journal.readAll().isEmpty());
+        }
+    }
+
+    // Replays the two intact records, truncates the file to them, and puts the next record right after them
+    private static void assertReplaysTwoAndAppendsAfterThem(Path path, long intactBytes) throws IOException {
+        try (BookingJournal journal = BookingJournal.open(path)) {
+            List<WriteBehindQueue.Change> changes = journal.readAll();
+            assertEquals(2, changes.size());
+            assertEquals(2, changes.get(1).sequence);
+            assertEquals(intactBytes, journal.size());
+
+            WriteBehindQueue.Change next = change(3);
+            journal.append(next);
+            journal.sync(next.sequence);
+        }
+        try (BookingJournal journal = BookingJournal.open(path)) {
+            List<WriteBehindQueue.Change> changes = journal.readAll();
+            assertEquals(3, changes.size());
+            assertEquals(3, changes.get(2).sequence);
+        }
+    }
+
+    private static void writeRecords(Path path, int count) throws IOException {
+        try (BookingJournal journal = BookingJournal.open(path)) {
+            for (int i = 1; i <= count; i++) {
+                journal.append(change(i));
+            }
+            journal.sync(count);
+        }
+    }
+
+    // File offset where the first count records end
+    private static long recordEnd(Path path, int count) throws IOException {
+        Path copy = path.resolveSibling("prefix");
+        writeRecords(copy, count);
+        return Files.size(copy);
+    }
+
+    private static WriteBehindQueue.Change change(int sequence) {
+        int i = sequence - 1;
+        WriteBehindQueue.Change change = new WriteBehindQueue.Change(WriteBehindQueue.Change.BOOK, 100 + i, 7,
+                "Passenger " + i, "p" + i + "@example.com", new int[]{i + 1, i + 2});
+        change.sequence = sequence;
+        return change;
+    }
+}
@@ -0,0 +1,109 @@
+package airline;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingLoopsTest {
+    private ConnectionPool pool;
+    private BookingLoops loops;
+    private int first;
+    private int second;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = TestDatabase.open();
+        first = TestDatabase.addFlight(pool, 60);
+        second = TestDatabase.addFlight(pool, 60);
+        System.setProperty("booking.loops", "2");
+        try {
+            loops = BookingLoops.configured();
+        } finally {
+            System.clearProperty("booking.loops");
+        }
+        FlightTicketBookingSystem.bookingLoops = loops;
+    }
+
+    @AfterEach
+    void tearDown() {
+        loops.close();
+        TestDatabase.close(pool);
+    }
+
+    @Test
+    void isOffUnlessConfigured() {
+        assertNull(BookingLoops.configured());
+    }
+
+    // Many callers at once, so the loops drain and write them in batches; parties of 1 and 2 fill both flights
+    @Test
+    void concurrentBookingsGetDistinctSeats() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<BookingResult>> results = new ArrayList<>();
+            for (int i = 0; i < 80; i++) {
+                int flightNumber = i % 2 == 0 ? first : second;
+                String name = "P" + i;
+                int seats = 1 + i / 2 % 2;
+                results.add(executor.submit(() -> ReservationEngine.bookSeats(flightNumber, name, "p@example.com", seats)));
+            }
+            Set<String> seats = new HashSet<>();
+            int[] booked = new int[2];
+            for (Future<BookingResult> result : results) {
+                BookingResult r = result.get();
+                assertEquals(BookingResult.Status.BOOKED, r.status);
+                for (int seat : r.seats) {
+                    assertTrue(seats.add(r.flightNumber + ":" + seat), "seat " + seat + " sold twice");
+                    assertEquals(r.bookingId, TestDatabase.seatMap(r.flightNumber).bookingAt(seat));
+                }
+                booked[r.flightNumber == first ? 0 : 1] += r.seats.length;
+            }
+            assertEquals(60, booked[0]);
+            assertEquals(60, booked[1]);
+            assertBooked(first, 60);
+            assertBooked(second, 60);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void cancelsThroughTheFlightsLoop() throws SQLException {
+        BookingResult booked = ReservationEngine.bookSpecificSeat(first, 12, "Asha", "asha@example.com");
+        assertEquals(BookingResult.Status.BOOKED, booked.status);
+        assertEquals(BookingResult.Status.SEAT_TAKEN,
+                ReservationEngine.bookSpecificSeat(first, 12, "Ravi", "ravi@example.com").status);
+
+        assertEquals(BookingResult.Status.CANCELLED, ReservationEngine.cancel(booked.bookingId).status);
+        assertFalse(TestDatabase.seatMap(first).isBooked(12));
+        assertBooked(first, 0);
+        assertEquals(BookingResult.Status.BOOKING_NOT_FOUND, ReservationEngine.cancel(booked.bookingId).status);
+    }
+
+    @Test
+    void refusesCommandsOnceClosed() {
+        loops.close();
+
+        SQLException e = assertThrows(SQLException.class,
+                () -> loops.book(new BookingRequest(first, "Asha", "asha@example.com", 1, null)));
+        assertEquals("Booking loops are closed", e.getMessage());
+    }
+
+    private void assertBooked(int flightNumber, int seats) throws SQLException {
+        assertEquals(seats, TestDatabase.seatMap(flightNumber).bookedCount());
+        assertEquals(seats, TestDatabase.queryInt(pool, "SELECT COUNT(*) FROM seat_assignments sa " +
+                "JOIN Bookings b ON b.BookingID = sa.BookingID WHERE b.FlightNumber = " + flightNumber));
+        assertEquals(60 - seats, TestDatabase.queryInt(pool, "SELECT AvailableSeats FROM Flights WHERE FlightNumber = " + flightNumber));
+    }
+}
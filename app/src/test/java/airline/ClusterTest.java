@@ -0,0 +1,108 @@
+package airline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterTest {
+    private static final int FLIGHTS = 20_000;
+
+    @Test
+    void everyFlightHasALiveOwner() {
+        for (int count = 1; count <= 5; count++) {
+            List<Cluster.Node> live = nodes(count);
+            Cluster.Ring ring = new Cluster.Ring(live);
+            for (int flightNumber = 1; flightNumber <= FLIGHTS; flightNumber++) {
+                assertTrue(live.contains(ring.owner(flightNumber)));
+            }
+        }
+    }
+
+    @Test
+    void spreadsFlightsRoughlyEvenly() {
+        for (int count = 2; count <= 5; count++) {
+            Map<Cluster.Node, Integer> owned = owned(new Cluster.Ring(nodes(count)));
+            assertEquals(count, owned.size());
+            for (int flights : owned.values()) {
+                // Within 30% of an even share at 128 points per node
+                assertTrue(Math.abs(flights - FLIGHTS / count) < 0.3 * FLIGHTS / count, count + " nodes: " + owned.values());
+            }
+        }
+    }
+
+    @Test
+    void onlyTheLeavingNodesFlightsMove() {
+        for (int count = 2; count <= 5; count++) {
+            List<Cluster.Node> all = nodes(count);
+            Cluster.Ring before = new Cluster.Ring(all);
+            Cluster.Node leaving = all.get(count / 2);
+            List<Cluster.Node> rest = new ArrayList<>(all);
+            rest.remove(leaving);
+            Cluster.Ring after = new Cluster.Ring(rest);
+
+            for (int flightNumber = 1; flightNumber <= FLIGHTS; flightNumber++) {
+                Cluster.Node owner = before.owner(flightNumber);
+                if (owner != leaving) assertSame(owner, after.owner(flightNumber));
+            }
+        }
+    }
+
+    @Test
+    void aNodeServesEverythingUntilItsPeersAnswer() throws InterruptedException {
+        // Nothing listens on port 1, so the peers stay down
+        System.setProperty("cluster.nodes", "127.0.0.1:1,127.0.0.1:2,127.0.0.1:3");
+        System.setProperty("cluster.self", "127.0.0.1:2");
+        System.setProperty("cluster.heartbeat.millis", "100");
+        Cluster cluster = Cluster.configured(new SeatMapRegistry(null, SeatMapRegistry.defaultBudgetBytes()));
+        try {
+            awaitReady(cluster);
+            for (int flightNumber = 1; flightNumber <= 1000; flightNumber++) {
+                assertNull(cluster.ownerOf(flightNumber));
+            }
+            // Hold ids carry the index of the node that made them, past the range of an int too
+            assertNull(cluster.holderOf(3_000_000_001L));
+            assertEquals("127.0.0.1:1", cluster.holderOf(3_000_000_000L).address);
+            assertEquals("127.0.0.1:3", cluster.holderOf(3_000_000_002L).address);
+        } finally {
+            cluster.close();
+            SeatHolds.partitionIds(1, 0);
+            System.clearProperty("cluster.nodes");
+            System.clearProperty("cluster.self");
+            System.clearProperty("cluster.heartbeat.millis");
+        }
+    }
+
+    private static void awaitReady(Cluster cluster) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (true) {
+            try {
+                cluster.ownerOf(1);
+                return;
+            } catch (IllegalStateException e) {
+                if (System.currentTimeMillis() > deadline) throw e;
+                Thread.sleep(20);
+            }
+        }
+    }
+
+    private static List<Cluster.Node> nodes(int count) {
+        List<Cluster.Node> nodes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            nodes.add(new Cluster.Node("10.0.0." + (i + 1) + ":8080", i));
+        }
+        return nodes;
+    }
+
+    private static Map<Cluster.Node, Integer> owned(Cluster.Ring ring) {
+        Map<Cluster.Node, Integer> owned = new HashMap<>();
+        for (int flightNumber = 1; flightNumber <= FLIGHTS; flightNumber++) {
+            owned.merge(ring.owner(flightNumber), 1, Integer::sum);
+        }
+        return owned;
+    }
+}
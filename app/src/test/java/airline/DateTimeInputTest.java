@@ -0,0 +1,80 @@
+package airline;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DateTimeInputTest {
+    @ParameterizedTest
+    @CsvSource({
+            "2024-01-01, 20240101",
+            "2024-02-29, 20240229",
+            "2000-02-29, 20000229",
+            "2023-12-31, 20231231",
+            "0001-01-01, 10101",
+    })
+    void acceptsDates(String input, int expected) {
+        assertEquals(expected, DateTimeInput.parseDate(input));
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {
+            "2023-02-29", "1900-02-29", "2024-04-31", "2024-13-01", "2024-00-10", "2024-01-00", "0000-01-01",
+            "2024-1-01", "2024/01/01", "20240101", "2024-01-011", " 2024-01-01", "2024-01-0a", "+024-01-01",
+    })
+    void rejectsDates(String input) {
+        assertEquals(DateTimeInput.INVALID, DateTimeInput.parseDate(input));
+        assertFalse(DateTimeInput.isValidDate(input));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "00:00:00, 0",
+            "23:59:59, 86399",
+            "9:05:07, 32707",
+            "9:5:7, 32707",
+            "12:30:00, 45000",
+    })
+    void acceptsTimes(String input, int expectedSeconds) {
+        assertEquals(expectedSeconds, DateTimeInput.parseTime(input));
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {
+            "24:00:00", "12:60:00", "12:00:60", "123:00:00", "12:00", "12:00:00:00", "12::00", ":00:00",
+            "12:00:", "12-00-00", "1a:00:00", " 12:00:00", "12:00:00 ", "-1:00:00",
+    })
+    void rejectsTimes(String input) {
+        assertEquals(DateTimeInput.INVALID, DateTimeInput.parseTime(input));
+        assertFalse(DateTimeInput.isValidTime(input));
+    }
+
+    @Test
+    void packedDatesOrderLikeTheDates() {
+        assertTrue(DateTimeInput.parseDate("2023-12-31") < DateTimeInput.parseDate("2024-01-01"));
+        assertTrue(DateTimeInput.parseDate("2024-01-31") < DateTimeInput.parseDate("2024-02-01"));
+    }
+
+    @Test
+    void comparesAgainstToday() {
+        LocalDate today = LocalDate.now();
+        assertTrue(DateTimeInput.isTodayOrLater(today.toString()));
+        assertTrue(DateTimeInput.isTodayOrLater(today.plusDays(1).toString()));
+        assertFalse(DateTimeInput.isTodayOrLater(today.minusDays(1).toString()));
+        assertFalse(DateTimeInput.isTodayOrLater("not a date"));
+    }
+
+    @Test
+    void convertsToLocalDate() {
+        assertEquals(LocalDate.of(2024, 2, 29), DateTimeInput.toLocalDate("2024-02-29"));
+        assertNull(DateTimeInput.toLocalDate("2023-02-29"));
+    }
+}
@@ -0,0 +1,145 @@
+package airline;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ManifestBookerTest {
+    private ConnectionPool pool;
+    private int first;
+    private int second;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = TestDatabase.open();
+        first = TestDatabase.addFlight(pool, 30);
+        second = TestDatabase.addFlight(pool, 30);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TestDatabase.close(pool);
+    }
+
+    @Test
+    void booksEachLineAndReportsItInOrder() throws Exception {
+        String[] results = book("FlightNumber,PassengerName,PassengerEmail,Seats\n"
+                + first + ",Asha,asha@example.com,2\n"
+                + second + ",Ravi,ravi@example.com,1,Window\n"
+                + first + ",Meena,meena@example.com,0\n"
+                + first + ",Zoë,zoe@example.com,40\n");
+
+        assertEquals(ManifestBooker.RESULTS_HEADER, results[0]);
+        assertTrue(results[1].startsWith("2," + first + ",Asha,BOOKED,"));
+        assertTrue(results[2].startsWith("3," + second + ",Ravi,BOOKED,"));
+        assertEquals("4," + first + ",Meena,INVALID,,seats must be positive", results[3]);
+        assertEquals("5," + first + ",Zoë,NOT_ENOUGH_SEATS,,", results[4]);
+        assertEquals(2, TestDatabase.seatMap(first).bookedCount());
+    }
+
+    @Test
+    void queuesPartiesOnTheFlightsLoop() throws Exception {
+        System.setProperty("booking.loops", "2");
+        try {
+            FlightTicketBookingSystem.bookingLoops = BookingLoops.configured();
+        } finally {
+            System.clearProperty("booking.loops");
+        }
+        try {
+            StringBuilder manifest = new StringBuilder();
+            for (int i = 0; i < 20; i++) {
+                manifest.append(i % 2 == 0 ? first : second).append(",P").append(i).append(",p@example.com,1\n");
+            }
+            String[] results = book(manifest.toString());
+
+            for (int i = 1; i <= 20; i++) {
+                assertTrue(results[i].contains(",BOOKED,"), results[i]);
+            }
+            assertEquals(10, TestDatabase.seatMap(first).bookedCount());
+            assertEquals(10, TestDatabase.seatMap(second).bookedCount());
+            assertEquals(20, TestDatabase.queryInt(pool, "SELECT COUNT(*) FROM seat_assignments"));
+        } finally {
+            FlightTicketBookingSystem.bookingLoops.close();
+        }
+    }
+
+    @Test
+    void leavesFlightsOwnedByAnotherNodeAlone() throws Exception {
+        // A peer that only answers heartbeats
+        HttpServer peer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        peer.createContext("/cluster", exchange -> {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        peer.start();
+        String peerAddress = "127.0.0.1:" + peer.getAddress().getPort();
+        System.setProperty("cluster.nodes", peerAddress + ",127.0.0.1:1");
+        System.setProperty("cluster.self", "127.0.0.1:1");
+        System.setProperty("cluster.heartbeat.millis", "100");
+        Cluster cluster = Cluster.configured(FlightTicketBookingSystem.flightSeatTrees);
+        FlightTicketBookingSystem.cluster = cluster;
+        try {
+            int foreign = awaitForeignFlight(cluster);
+            int local = TestDatabase.addFlight(pool, 30);
+            while (cluster.ownerOf(local) != null) {
+                local = TestDatabase.addFlight(pool, 30);
+            }
+
+            String[] results = book(foreign + ",Asha,asha@example.com,1\n" + local + ",Ravi,ravi@example.com,1\n");
+            assertEquals("1," + foreign + ",Asha,ERROR,,Flight " + foreign + " is served by node " + peerAddress
+                    + "; use that node.", results[1]);
+            assertTrue(results[2].startsWith("2," + local + ",Ravi,BOOKED,"));
+            assertNull(FlightTicketBookingSystem.flightSeatTrees.getIfLoaded(foreign));
+            assertEquals(1, TestDatabase.queryInt(pool, "SELECT COUNT(*) FROM seat_assignments"));
+        } finally {
+            cluster.close();
+            peer.stop(0);
+            SeatHolds.partitionIds(1, 0);
+            System.clearProperty("cluster.nodes");
+            System.clearProperty("cluster.self");
+            System.clearProperty("cluster.heartbeat.millis");
+        }
+    }
+
+    // A new flight the peer owns, once the peer has joined
+    private int awaitForeignFlight(Cluster cluster) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!peerOwnsAny(cluster)) {
+            assertTrue(System.currentTimeMillis() < deadline, "peer did not join");
+            Thread.sleep(20);
+        }
+        int flightNumber = TestDatabase.addFlight(pool, 30);
+        while (cluster.ownerOf(flightNumber) == null) {
+            flightNumber = TestDatabase.addFlight(pool, 30);
+        }
+        return flightNumber;
+    }
+
+    private static boolean peerOwnsAny(Cluster cluster) {
+        try {
+            for (int flightNumber = 1; flightNumber <= 100; flightNumber++) {
+                if (cluster.ownerOf(flightNumber) != null) return true;
+            }
+        } catch (IllegalStateException e) {
+            // No heartbeat round yet
+        }
+        return false;
+    }
+
+    private static String[] book(String manifest) throws IOException {
+        StringWriter out = new StringWriter();
+        ManifestBooker.book(new BufferedReader(new StringReader(manifest)), new PrintWriter(out));
+        return out.toString().split("\r?\n");
+    }
+}
@@ -0,0 +1,177 @@
+package airline;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationEngineTest {
+    private ConnectionPool pool;
+    private int flightNumber;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = TestDatabase.open();
+        flightNumber = TestDatabase.addFlight(pool, 30);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TestDatabase.close(pool);
+    }
+
+    @Test
+    void aFlightAlwaysMapsToTheSameLockStripe() {
+        assertSame(ReservationEngine.lockFor(7), ReservationEngine.lockFor(7));
+        assertNotSame(ReservationEngine.lockFor(7), ReservationEngine.lockFor(8));
+        assertNotNull(ReservationEngine.lockFor(-7));
+    }
+
+    @Test
+    void neighbouringFlightsUseDifferentStripes() {
+        Set<ReentrantLock> stripes = new HashSet<>();
+        for (int flight = 1; flight <= 64; flight++) {
+            stripes.add(ReservationEngine.lockFor(flight));
+        }
+        assertEquals(64, stripes.size());
+    }
+
+    @Test
+    void aBookingIsInTheMapAndTheTables() throws SQLException {
+        BookingResult result = ReservationEngine.bookSeats(flightNumber, "Asha", "asha@example.com", 3);
+
+        assertEquals(BookingResult.Status.BOOKED, result.status);
+        SeatMap seatMap = TestDatabase.seatMap(flightNumber);
+        for (int seat : result.seats) {
+            assertEquals(result.bookingId, seatMap.bookingAt(seat));
+        }
+        // The claim's pin is gone once the booking is settled
+        assertFalse(seatMap.isPinned());
+        assertEquals(3, TestDatabase.queryInt(pool, "SELECT COUNT(*) FROM seat_assignments WHERE BookingID = " + result.bookingId));
+        assertEquals(27, TestDatabase.queryInt(pool, "SELECT AvailableSeats FROM Flights WHERE FlightNumber = " + flightNumber));
+    }
+
+    @Test
+    void aRefusedBookingLeavesNoClaimBehind() throws SQLException {
+        ReservationEngine.bookSeats(flightNumber, "Asha", "asha@example.com", 28);
+
+        assertEquals(BookingResult.Status.NOT_ENOUGH_SEATS,
+                ReservationEngine.bookSeats(flightNumber, "Ravi", "ravi@example.com", 3).status);
+        SeatMap seatMap = TestDatabase.seatMap(flightNumber);
+        assertEquals(28, seatMap.bookedCount());
+        assertFalse(seatMap.isPinned());
+    }
+
+    @Test
+    void aClaimTheDatabaseRejectsIsGivenBack() throws SQLException {
+        // Another instance sold the last seats; this map does not know yet
+        TestDatabase.seatMap(flightNumber);
+        TestDatabase.update(pool, "UPDATE Flights SET AvailableSeats = 1 WHERE FlightNumber = " + flightNumber);
+
+        assertEquals(BookingResult.Status.NOT_ENOUGH_SEATS,
+                ReservationEngine.bookSeats(flightNumber, "Asha", "asha@example.com", 2).status);
+        SeatMap seatMap = TestDatabase.seatMap(flightNumber);
+        assertEquals(0, seatMap.bookedCount());
+        assertFalse(seatMap.isPinned());
+    }
+
+    @Test
+    void aPinnedMapStaysResidentUntilUnpinned() throws SQLException {
+        ReservationEngine.pin(flightNumber);
+        assertTrue(TestDatabase.seatMap(flightNumber).isPinned());
+
+        ReservationEngine.unpin(flightNumber, 1);
+        assertFalse(TestDatabase.seatMap(flightNumber).isPinned());
+    }
+
+    @Test
+    void settlingAClaimOnARemovedMapIsHarmless() throws SQLException {
+        BookingResult held = ReservationEngine.holdSeats(flightNumber, new int[]{4}, "Asha");
+        FlightTicketBookingSystem.flightSeatTrees.remove(flightNumber);
+
+        assertEquals(BookingResult.Status.HOLD_RELEASED, ReservationEngine.releaseHold(held.holdId).status);
+    }
+
+    @Test
+    void cancellingFreesTheSeats() throws SQLException {
+        BookingResult booked = ReservationEngine.bookSeats(flightNumber, "Asha", "asha@example.com", 2);
+
+        BookingResult cancelled = ReservationEngine.cancel(booked.bookingId);
+        assertEquals(BookingResult.Status.CANCELLED, cancelled.status);
+        SeatMap seatMap = TestDatabase.seatMap(flightNumber);
+        for (int seat : booked.seats) {
+            assertFalse(seatMap.isBooked(seat));
+        }
+        assertEquals(30, TestDatabase.queryInt(pool, "SELECT AvailableSeats FROM Flights WHERE FlightNumber = " + flightNumber));
+        assertEquals(BookingResult.Status.BOOKING_NOT_FOUND, ReservationEngine.cancel(booked.bookingId).status);
+    }
+
+    // Loading the cold map must not need a second connection while the cancel's transaction holds one
+    @Test
+    void cancelsOnAColdMapWithOneConnectionFree() throws SQLException {
+        BookingResult booked = ReservationEngine.bookSeats(flightNumber, "Asha", "asha@example.com", 2);
+        FlightTicketBookingSystem.flightSeatTrees = new SeatMapRegistry(pool, SeatMapRegistry.defaultBudgetBytes());
+
+        List<PooledConnection> held = new ArrayList<>();
+        try {
+            for (int i = 1; i < TestDatabase.POOL_SIZE; i++) {
+                held.add(pool.acquire());
+            }
+            BookingResult cancelled = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                    () -> ReservationEngine.cancel(booked.bookingId));
+            assertEquals(BookingResult.Status.CANCELLED, cancelled.status);
+        } finally {
+            held.forEach(PooledConnection::close);
+        }
+        SeatMap seatMap = TestDatabase.seatMap(flightNumber);
+        assertEquals(0, seatMap.bookedCount());
+        assertFalse(seatMap.isPinned());
+    }
+
+    @Test
+    void rejectsUnknownFlightsAndSeats() throws SQLException {
+        assertEquals(BookingResult.Status.FLIGHT_NOT_FOUND, ReservationEngine.bookSeats(999, "Asha", "asha@example.com", 1).status);
+        assertEquals(BookingResult.Status.INVALID_SEAT,
+                ReservationEngine.bookSpecificSeat(flightNumber, 31, "Asha", "asha@example.com").status);
+    }
+
+    @Test
+    void concurrentBookersNeverOversell() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<BookingResult>> results = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                String name = "P" + i;
+                results.add(executor.submit(() -> ReservationEngine.bookSeats(flightNumber, name, "p@example.com", 1)));
+            }
+            Set<Integer> seats = new HashSet<>();
+            int booked = 0;
+            for (Future<BookingResult> result : results) {
+                BookingResult r = result.get();
+                if (r.status == BookingResult.Status.BOOKED) {
+                    booked++;
+                    assertTrue(seats.add(r.seats[0]), "seat " + r.seats[0] + " sold twice");
+                } else {
+                    assertEquals(BookingResult.Status.NOT_ENOUGH_SEATS, r.status);
+                }
+            }
+            assertEquals(30, booked);
+            assertEquals(0, TestDatabase.queryInt(pool, "SELECT AvailableSeats FROM Flights WHERE FlightNumber = " + flightNumber));
+            assertFalse(TestDatabase.seatMap(flightNumber).isPinned());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package airline;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Nodes starting together against one fresh database, each with its own pool
+class SchemaMigrationsTest {
+    private static final int NODES = 4;
+
+    private final List<ConnectionPool> pools = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        String url = "jdbc:h2:mem:migrations" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        for (int i = 0; i < NODES; i++) {
+            pools.add(new ConnectionPool(url, "sa", "", 2));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        pools.forEach(ConnectionPool::close);
+    }
+
+    @Test
+    void nodesStartingTogetherApplyEachMigrationOnce() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(NODES);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> results = new ArrayList<>();
+            for (ConnectionPool pool : pools) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return SchemaMigrations.migrate(pool);
+                }));
+            }
+            start.countDown();
+
+            int applied = 0;
+            for (Future<Integer> result : results) {
+                applied += result.get();
+            }
+            int versions = TestDatabase.queryInt(pools.get(0), "SELECT COUNT(*) FROM schema_migrations");
+            assertEquals(versions, applied);
+            assertEquals(versions, TestDatabase.queryInt(pools.get(0), "SELECT MAX(Version) FROM schema_migrations"));
+            assertEquals(0, TestDatabase.queryInt(pools.get(0), "SELECT COUNT(*) FROM schema_lock"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void takesOverALockLeftByANodeThatDied() throws SQLException {
+        ConnectionPool pool = pools.get(0);
+        TestDatabase.update(pool, SchemaMigrations.CREATE_LOCK_TABLE_SQL);
+        TestDatabase.update(pool, "INSERT INTO schema_lock (Id, LockedUntil) VALUES (1, TIMESTAMPADD(MINUTE, -1, CURRENT_TIMESTAMP))");
+
+        assertTrue(SchemaMigrations.migrate(pool) > 0);
+        assertEquals(0, SchemaMigrations.migrate(pools.get(1)));
+    }
+
+    @Test
+    void releasesSeatsThatMatchNoBooking() throws SQLException {
+        ConnectionPool pool = pools.get(0);
+        SchemaMigrations.migrate(pool);
+        int flightNumber = TestDatabase.addFlight(pool, 30);
+        TestDatabase.update(pool, "INSERT INTO bookings (BookingID, FlightNumber, PassengerName, PassengerEmail, SeatsBooked, BookingDate) " +
+                "VALUES (500, " + flightNumber + ", 'Asha', 'asha@example.com', 1, CURRENT_DATE)");
+        // Seat 1 was linked to Asha's booking; nobody booked under Ravi's name, so seats 2 and 3 were not
+        TestDatabase.update(pool, "INSERT INTO seat_assignments (FlightNumber, SeatNumber, PassengerName, BookingID) VALUES " +
+                "(" + flightNumber + ", 1, 'Asha', 500), (" + flightNumber + ", 2, 'Ravi', NULL), (" + flightNumber + ", 3, 'Ravi', NULL)");
+        TestDatabase.update(pool, "UPDATE Flights SET AvailableSeats = 27 WHERE FlightNumber = " + flightNumber);
+        TestDatabase.update(pool, "DELETE FROM schema_migrations WHERE Version = 30");
+
+        assertEquals(1, SchemaMigrations.migrate(pool));
+        assertEquals(29, TestDatabase.queryInt(pool, "SELECT AvailableSeats FROM Flights WHERE FlightNumber = " + flightNumber));
+        assertEquals(1, TestDatabase.queryInt(pool, "SELECT COUNT(*) FROM seat_assignments WHERE FlightNumber = " + flightNumber));
+        assertEquals(500, TestDatabase.queryInt(pool, "SELECT BookingID FROM seat_assignments WHERE FlightNumber = " + flightNumber));
+    }
+}
@@ -0,0 +1,167 @@
+package airline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The allocator is driven through SeatMap.bookGroup(), which is how the booking paths use it
+class SeatAllocatorTest {
+    private static final AircraftLayout LAYOUT = AircraftLayout.get(AircraftLayout.DEFAULT_CODE);
+    private static final int PER_ROW = LAYOUT.seatsPerRow;
+
+    @Test
+    void seatsAPartyTogetherInOneRow() {
+        SeatMap seatMap = new SeatMap();
+        seatMap.book(2, "Someone");
+
+        int[] seats = seatMap.bookGroup(4, null, "Asha", LAYOUT, 180);
+        assertTogether(seats);
+    }
+
+    @Test
+    void honoursASeatTypePreference() {
+        SeatMap seatMap = new SeatMap();
+        for (SeatType type : SeatType.values()) {
+            int[] seats = seatMap.bookGroup(1, type, "Asha", LAYOUT, 180);
+            assertEquals(type, LAYOUT.seatType(seats[0]));
+        }
+    }
+
+    @Test
+    void booksNothingWhenThePartyDoesNotFit() {
+        SeatMap seatMap = new SeatMap();
+        assertNotNull(seatMap.bookGroup(4, null, "Asha", LAYOUT, 6));
+
+        assertNull(seatMap.bookGroup(3, null, "Ravi", LAYOUT, 6));
+        assertEquals(4, seatMap.bookedCount());
+    }
+
+    @Test
+    void splitsAPartyWhenNoRowHasRoom() {
+        SeatMap seatMap = new SeatMap();
+        // Every row keeps a gap of two
+        for (int seat = 1; seat <= 12; seat++) {
+            if (seat % PER_ROW != 3 && seat % PER_ROW != 4) seatMap.book(seat, "Someone");
+        }
+
+        int[] seats = seatMap.bookGroup(4, null, "Asha", LAYOUT, 12);
+        assertNotNull(seats);
+        assertEquals(Set.of(3, 4, 9, 10), toSet(seats));
+    }
+
+    @Test
+    void releasedSeatsCanBeBookedAgain() {
+        SeatMap seatMap = new SeatMap();
+        seatMap.bookGroup(6, null, "Asha", LAYOUT, 6);
+        seatMap.release(3);
+
+        assertArrayEquals(new int[]{3}, seatMap.bookGroup(1, null, "Ravi", LAYOUT, 6));
+        assertNull(seatMap.bookGroup(1, null, "Mina", LAYOUT, 6));
+    }
+
+    @Test
+    void raisingTheCapacityAddsSeats() {
+        SeatMap seatMap = new SeatMap();
+        seatMap.bookGroup(6, null, "Asha", LAYOUT, 6);
+
+        int[] seats = seatMap.bookGroup(2, null, "Ravi", LAYOUT, 12);
+        assertTrue(seats[0] > 6 && seats[1] > 6);
+    }
+
+    @Test
+    void loweringTheCapacityWithdrawsTheSeatsAboveIt() {
+        SeatMap seatMap = new SeatMap();
+        seatMap.bookGroup(1, null, "Asha", LAYOUT, 18);
+
+        for (int i = 0; i < 11; i++) {
+            int[] seats = seatMap.bookGroup(1, null, "P" + i, LAYOUT, 12);
+            assertNotNull(seats);
+            assertTrue(seats[0] <= 12, "seat " + seats[0] + " is above the capacity");
+        }
+        assertNull(seatMap.bookGroup(1, null, "Ravi", LAYOUT, 12));
+    }
+
+    // Random bookings and cancellations against a plain model of which seats are taken
+    @Test
+    void keepsItsInvariantsThroughBookingsAndReleases() {
+        int capacity = 60;
+        Random random = new Random(42);
+        SeatMap seatMap = new SeatMap();
+        boolean[] taken = new boolean[capacity + 1];
+        List<Integer> bookings = new ArrayList<>();
+        int nextBookingId = 1;
+
+        for (int step = 0; step < 5_000; step++) {
+            if (bookings.isEmpty() || random.nextInt(3) > 0) {
+                int count = 1 + random.nextInt(8);
+                SeatType preference = random.nextBoolean() ? null : SeatType.values()[random.nextInt(SeatType.values().length)];
+                boolean rowHasRoom = count <= PER_ROW && someRowHasRun(taken, capacity, count);
+                int free = freeCount(taken, capacity);
+
+                int[] seats = seatMap.bookGroup(count, preference, "P" + step, LAYOUT, capacity);
+                if (free < count) {
+                    assertNull(seats, "booked more seats than were free");
+                    continue;
+                }
+                assertNotNull(seats, "refused a party that fits");
+                assertEquals(count, seats.length);
+                for (int seat : seats) {
+                    assertTrue(seat >= 1 && seat <= capacity, "seat " + seat + " outside the aircraft");
+                    assertFalse(taken[seat], "seat " + seat + " handed out twice");
+                    taken[seat] = true;
+                }
+                if (rowHasRoom) assertTogether(seats);
+                seatMap.assignBooking(nextBookingId, seats);
+                bookings.add(nextBookingId++);
+            } else {
+                int bookingId = bookings.remove(random.nextInt(bookings.size()));
+                for (int seat : seatMap.releaseBooking(bookingId)) {
+                    taken[seat] = false;
+                }
+            }
+            assertEquals(capacity - freeCount(taken, capacity), seatMap.bookedCount());
+        }
+    }
+
+    private static void assertTogether(int[] seats) {
+        assertNotNull(seats);
+        int row = (seats[0] - 1) / PER_ROW;
+        for (int i = 0; i < seats.length; i++) {
+            assertEquals(seats[0] + i, seats[i], "seats are not side by side");
+            assertEquals(row, (seats[i] - 1) / PER_ROW, "seats span two rows");
+        }
+    }
+
+    private static boolean someRowHasRun(boolean[] taken, int capacity, int count) {
+        for (int rowStart = 1; rowStart <= capacity; rowStart += PER_ROW) {
+            int run = 0;
+            for (int seat = rowStart; seat < rowStart + PER_ROW && seat <= capacity; seat++) {
+                run = taken[seat] ? 0 : run + 1;
+                if (run >= count) return true;
+            }
+        }
+        return false;
+    }
+
+    private static int freeCount(boolean[] taken, int capacity) {
+        int free = 0;
+        for (int seat = 1; seat <= capacity; seat++) {
+            if (!taken[seat]) free++;
+        }
+        return free;
+    }
+
+    private static Set<Integer> toSet(int[] seats) {
+        Set<Integer> set = new HashSet<>();
+        for (int seat : seats) {
+            set.add(seat);
+        }
+        return set;
+    }
+}
@@ -0,0 +1,109 @@
+package airline;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Polls by hand; the feed's own thread is never started
+class SeatChangeFeedTest {
+    private ConnectionPool pool;
+    private int flightNumber;
+    private SeatChangeFeed feed;
+    private long highWater;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = TestDatabase.open();
+        flightNumber = TestDatabase.addFlight(pool, 30);
+        feed = SeatChangeFeed.configured(pool, FlightTicketBookingSystem.flightCache, FlightTicketBookingSystem.flightSeatTrees);
+        highWater = SeatChangeLog.latest(pool);
+        TestDatabase.seatMap(flightNumber);
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.close();
+        TestDatabase.close(pool);
+    }
+
+    @Test
+    void appliesAnotherInstancesBooking() throws SQLException {
+        insertChange(highWater + 1, SeatChangeLog.BOOK, 500, "Asha", "4,5");
+
+        assertEquals(1, feed.poll());
+        SeatMap seatMap = TestDatabase.seatMap(flightNumber);
+        assertEquals(500, seatMap.bookingAt(4));
+        assertEquals(500, seatMap.bookingAt(5));
+        assertEquals("Asha", seatMap.passengerAt(4));
+        // Read once only
+        assertEquals(0, feed.poll());
+    }
+
+    @Test
+    void skipsThisInstancesOwnChanges() throws SQLException {
+        BookingResult booked = ReservationEngine.bookSeats(flightNumber, "Asha", "asha@example.com", 2);
+
+        assertEquals(0, feed.poll());
+        assertEquals(booked.bookingId, TestDatabase.seatMap(flightNumber).bookingAt(booked.seats[0]));
+    }
+
+    @Test
+    void fillsInAChangeCommittedAfterAHigherOne() throws SQLException {
+        insertChange(highWater + 2, SeatChangeLog.BOOK, 502, "Ravi", "8");
+        assertEquals(1, feed.poll());
+
+        insertChange(highWater + 1, SeatChangeLog.BOOK, 501, "Asha", "7");
+        assertEquals(1, feed.poll());
+        SeatMap seatMap = TestDatabase.seatMap(flightNumber);
+        assertEquals(501, seatMap.bookingAt(7));
+        assertEquals(502, seatMap.bookingAt(8));
+    }
+
+    @Test
+    void stopsLookingForAGapAfterGapMillis() throws SQLException, InterruptedException {
+        insertChange(highWater + 2, SeatChangeLog.BOOK, 502, "Ravi", "8");
+        assertEquals(1, feed.poll());
+        Thread.sleep(SeatChangeFeed.GAP_MILLIS + 500);
+
+        insertChange(highWater + 1, SeatChangeLog.BOOK, 501, "Asha", "7");
+        assertEquals(0, feed.poll());
+        assertFalse(TestDatabase.seatMap(flightNumber).isBooked(7));
+    }
+
+    @Test
+    void dropsAMapThatMissedAChange() throws SQLException {
+        BookingResult booked = ReservationEngine.bookSpecificSeat(flightNumber, 3, "Asha", "asha@example.com");
+        highWater = SeatChangeLog.latest(pool);
+        assertEquals(0, feed.poll());
+
+        // Seat 3 belongs to another booking in this map
+        insertChange(highWater + 1, SeatChangeLog.BOOK, booked.bookingId + 100, "Ravi", "3");
+        assertEquals(1, feed.poll());
+        assertNull(FlightTicketBookingSystem.flightSeatTrees.getIfLoaded(flightNumber));
+    }
+
+    @Test
+    void appliesCancellationsAndRenames() throws SQLException {
+        insertChange(highWater + 1, SeatChangeLog.BOOK, 500, "Asha", "4,5");
+        insertChange(highWater + 2, SeatChangeLog.BOOK, 501, "Ravi", "6");
+        insertChange(highWater + 3, SeatChangeLog.CANCEL, 500, null, "4,5");
+        insertChange(highWater + 4, SeatChangeLog.RENAME, 501, "Ravi Kumar", "");
+
+        assertEquals(4, feed.poll());
+        SeatMap seatMap = TestDatabase.seatMap(flightNumber);
+        assertFalse(seatMap.isBooked(4));
+        assertFalse(seatMap.isBooked(5));
+        assertEquals("Ravi Kumar", seatMap.passengerAt(6));
+    }
+
+    // A change written by another instance, with the ChangeID it was given
+    private void insertChange(long changeId, int kind, int bookingId, String passengerName, String seats) throws SQLException {
+        TestDatabase.update(pool, "INSERT INTO seat_changes (ChangeID, FlightNumber, Kind, BookingID, PassengerName, Seats, Origin) " +
+                "VALUES (" + changeId + ", " + flightNumber + ", " + kind + ", " + bookingId + ", " +
+                (passengerName == null ? "NULL" : "'" + passengerName + "'") + ", '" + seats + "', 'other')");
+    }
+}
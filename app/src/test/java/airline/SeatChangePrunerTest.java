@@ -0,0 +1,47 @@
+package airline;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatChangePrunerTest {
+    private ConnectionPool pool;
+    private int flightNumber;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = TestDatabase.open();
+        flightNumber = TestDatabase.addFlight(pool, 30);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TestDatabase.close(pool);
+    }
+
+    @Test
+    void prunesOldChangesAsSoonAsItStarts() throws Exception {
+        ReservationEngine.bookSeats(flightNumber, "Asha", "asha@example.com", 1);
+        ReservationEngine.bookSeats(flightNumber, "Ravi", "ravi@example.com", 1);
+        TestDatabase.update(pool, "UPDATE seat_changes SET ChangedAt = TIMESTAMPADD(DAY, -" + (SeatChangeLog.RETENTION_DAYS + 1)
+                + ", ChangedAt) WHERE PassengerName = 'Asha'");
+        assertEquals(2, countChanges());
+
+        try (SeatChangePruner ignored = SeatChangePruner.start(pool)) {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (countChanges() > 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+        }
+        assertEquals(1, countChanges());
+        assertEquals(1, TestDatabase.queryInt(pool, "SELECT COUNT(*) FROM seat_changes WHERE PassengerName = 'Ravi'"));
+    }
+
+    private int countChanges() throws SQLException {
+        return TestDatabase.queryInt(pool, "SELECT COUNT(*) FROM seat_changes WHERE FlightNumber = " + flightNumber);
+    }
+}
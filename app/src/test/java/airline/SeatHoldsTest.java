@@ -0,0 +1,115 @@
+package airline;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Holds last -Dseat.hold.seconds=1 here; see the surefire configuration
+class SeatHoldsTest {
+    private ConnectionPool pool;
+    private int flightNumber;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = TestDatabase.open();
+        flightNumber = TestDatabase.addFlight(pool, 30);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        // A hold left behind would expire into the next test's seat maps
+        awaitNoHolds();
+        TestDatabase.close(pool);
+    }
+
+    @Test
+    void confirmingAHoldBooksItsSeats() throws SQLException {
+        BookingResult held = ReservationEngine.holdSeats(flightNumber, new int[]{3, 4}, "Asha");
+        assertEquals(BookingResult.Status.HELD, held.status);
+        SeatMap seatMap = TestDatabase.seatMap(flightNumber);
+        assertTrue(seatMap.isBooked(3) && seatMap.isBooked(4));
+        assertTrue(seatMap.isPinned());
+        assertEquals(0, TestDatabase.queryInt(pool, "SELECT COUNT(*) FROM seat_assignments"));
+
+        BookingResult booked = ReservationEngine.confirmHold(held.holdId, "asha@example.com");
+        assertEquals(BookingResult.Status.BOOKED, booked.status);
+        assertArrayEquals(new int[]{3, 4}, booked.seats);
+        assertEquals(booked.bookingId, seatMap.bookingAt(3));
+        assertFalse(seatMap.isPinned());
+        assertEquals(2, TestDatabase.queryInt(pool, "SELECT COUNT(*) FROM seat_assignments"));
+    }
+
+    @Test
+    void aHeldSeatCannotBeTakenByAnyoneElse() throws SQLException {
+        BookingResult held = ReservationEngine.holdSeats(flightNumber, new int[]{5}, "Asha");
+
+        assertEquals(BookingResult.Status.SEAT_TAKEN, ReservationEngine.holdSeats(flightNumber, new int[]{5}, "Ravi").status);
+        assertEquals(BookingResult.Status.SEAT_TAKEN,
+                ReservationEngine.bookSpecificSeat(flightNumber, 5, "Ravi", "ravi@example.com").status);
+        ReservationEngine.releaseHold(held.holdId);
+    }
+
+    @Test
+    void holdsAllOfTheSeatsOrNone() throws SQLException {
+        ReservationEngine.bookSpecificSeat(flightNumber, 7, "Ravi", "ravi@example.com");
+
+        assertEquals(BookingResult.Status.SEAT_TAKEN, ReservationEngine.holdSeats(flightNumber, new int[]{6, 7}, "Asha").status);
+        assertEquals(BookingResult.Status.SEAT_TAKEN, ReservationEngine.holdSeats(flightNumber, new int[]{8, 8}, "Asha").status);
+        SeatMap seatMap = TestDatabase.seatMap(flightNumber);
+        assertFalse(seatMap.isBooked(6));
+        assertFalse(seatMap.isBooked(8));
+        assertFalse(seatMap.isPinned());
+    }
+
+    @Test
+    void rejectsSeatsOutsideTheAircraft() throws SQLException {
+        assertEquals(BookingResult.Status.INVALID_SEAT, ReservationEngine.holdSeats(flightNumber, new int[]{31}, "Asha").status);
+        assertEquals(BookingResult.Status.INVALID_SEAT, ReservationEngine.holdSeats(flightNumber, new int[0], "Asha").status);
+    }
+
+    @Test
+    void releasingAHoldGivesTheSeatsBack() throws SQLException {
+        BookingResult held = ReservationEngine.holdSeats(flightNumber, new int[]{9}, "Asha");
+
+        assertEquals(BookingResult.Status.HOLD_RELEASED, ReservationEngine.releaseHold(held.holdId).status);
+        SeatMap seatMap = TestDatabase.seatMap(flightNumber);
+        assertFalse(seatMap.isBooked(9));
+        assertFalse(seatMap.isPinned());
+        assertEquals(BookingResult.Status.HOLD_NOT_FOUND, ReservationEngine.confirmHold(held.holdId, "asha@example.com").status);
+        assertEquals(BookingResult.Status.HOLD_NOT_FOUND, ReservationEngine.releaseHold(held.holdId).status);
+    }
+
+    @Test
+    void anUnconfirmedHoldExpires() throws SQLException, InterruptedException {
+        BookingResult held = ReservationEngine.holdSeats(flightNumber, new int[]{10, 11}, "Asha");
+        SeatMap seatMap = TestDatabase.seatMap(flightNumber);
+
+        awaitNoHolds();
+        assertFalse(seatMap.isBooked(10));
+        assertFalse(seatMap.isBooked(11));
+        assertFalse(seatMap.isPinned());
+        assertEquals(BookingResult.Status.HOLD_NOT_FOUND, ReservationEngine.confirmHold(held.holdId, "asha@example.com").status);
+    }
+
+    @Test
+    void describesTheHoldTimeInMinutesAndSeconds() {
+        assertEquals("1 second", SeatHolds.describe(1_000));
+        assertEquals("45 seconds", SeatHolds.describe(45_000));
+        assertEquals("1 minute", SeatHolds.describe(60_000));
+        assertEquals("1 minute 30 seconds", SeatHolds.describe(90_000));
+        assertEquals("5 minutes", SeatHolds.describe(300_000));
+        assertEquals("2 minutes 1 second", SeatHolds.describe(121_000));
+    }
+
+    private static void awaitNoHolds() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + SeatHolds.TTL_MILLIS + 5_000;
+        while (SeatHolds.size() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, SeatHolds.size(), "holds did not expire");
+    }
+}
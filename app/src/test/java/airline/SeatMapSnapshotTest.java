@@ -0,0 +1,159 @@
+package airline;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatMapSnapshotTest {
+    @TempDir
+    Path dir;
+
+    private ConnectionPool pool;
+    private Path path;
+    private int first;
+    private int second;
+    private int third;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = TestDatabase.open();
+        path = dir.resolve("seats.snap");
+        first = TestDatabase.addFlight(pool, 30);
+        second = TestDatabase.addFlight(pool, 30);
+        third = TestDatabase.addFlight(pool, 30);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TestDatabase.close(pool);
+    }
+
+    @Test
+    void restoresTheMapsItWrote() throws Exception {
+        bookOn(first, 3);
+        bookOn(second, 1);
+        ReservationEngine.bookSpecificSeat(third, 30, "Zoë Ünal", "zoe@example.com");
+        ageChangeLog(first, second, third);
+        changeElsewhere();
+        String[] written = {dump(first), dump(second), dump(third)};
+
+        assertEquals(3, snapshot(FlightTicketBookingSystem.flightSeatTrees).write());
+        SeatMapRegistry restored = restart();
+        assertEquals(3, snapshot(restored).restore());
+
+        assertArrayEquals(written, new String[]{dump(first), dump(second), dump(third)});
+    }
+
+    @Test
+    void leavesOutFlightsChangedAfterTheSnapshot() throws Exception {
+        bookOn(first, 2);
+        bookOn(second, 2);
+        ageChangeLog(first, second);
+        changeElsewhere();
+        snapshot(FlightTicketBookingSystem.flightSeatTrees).write();
+        bookOn(second, 1);
+
+        SeatMapRegistry restored = restart();
+        assertEquals(1, snapshot(restored).restore());
+        assertNotNull(restored.getIfLoaded(first));
+        assertNull(restored.getIfLoaded(second));
+        // Loaded from the tables instead, with the later booking
+        assertEquals(4, TestDatabase.seatMap(second).bookedCount());
+    }
+
+    // A change with an ID below the high-water mark may not have been committed when the mark was read
+    @Test
+    void leavesOutFlightsChangedJustBeforeTheHighWaterMark() throws Exception {
+        bookOn(first, 1);
+        bookOn(third, 1);
+        // The latest change, and so the snapshot's high-water mark
+        bookOn(second, 1);
+        ageChangeLog(first, second, third);
+        ageChangeLog(first);
+
+        snapshot(FlightTicketBookingSystem.flightSeatTrees).write();
+        SeatMapRegistry restored = restart();
+        assertEquals(1, snapshot(restored).restore());
+        assertNotNull(restored.getIfLoaded(first));
+        assertNull(restored.getIfLoaded(third));
+    }
+
+    @Test
+    void skipsMapsPinnedByAnUnfinishedBooking() throws Exception {
+        bookOn(first, 1);
+        bookOn(second, 1);
+        BookingResult held = ReservationEngine.holdSeats(second, new int[]{20}, "Asha");
+        try {
+            assertEquals(1, snapshot(FlightTicketBookingSystem.flightSeatTrees).write());
+        } finally {
+            ReservationEngine.releaseHold(held.holdId);
+        }
+    }
+
+    @Test
+    void ignoresADamagedSnapshot() throws Exception {
+        bookOn(first, 2);
+        ageChangeLog(first);
+        changeElsewhere();
+        snapshot(FlightTicketBookingSystem.flightSeatTrees).write();
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(SeatMapSnapshot.HEADER_BYTES + 4);
+            file.write(file.read() ^ 0xFF);
+        }
+
+        SeatMapRegistry restored = restart();
+        assertEquals(-1, snapshot(restored).restore());
+        assertNull(restored.getIfLoaded(first));
+    }
+
+    @Test
+    void hasNothingToRestoreWithoutAFile() throws Exception {
+        assertEquals(-1, snapshot(FlightTicketBookingSystem.flightSeatTrees).restore());
+    }
+
+    private SeatMapSnapshot snapshot(SeatMapRegistry registry) {
+        return new SeatMapSnapshot(path, pool, FlightTicketBookingSystem.flightCache, registry);
+    }
+
+    // An empty registry, as after a restart
+    private SeatMapRegistry restart() {
+        FlightTicketBookingSystem.flightSeatTrees = new SeatMapRegistry(pool, SeatMapRegistry.defaultBudgetBytes());
+        return FlightTicketBookingSystem.flightSeatTrees;
+    }
+
+    private static void bookOn(int flightNumber, int parties) throws SQLException {
+        for (int i = 0; i < parties; i++) {
+            assertTrue(ReservationEngine.bookSeats(flightNumber, "P" + i, "p@example.com", 1 + i % 3).isSuccess());
+        }
+    }
+
+    // Moves the flights' changes an hour further into the past
+    private void ageChangeLog(int... flightNumbers) throws SQLException {
+        for (int flightNumber : flightNumbers) {
+            TestDatabase.update(pool, "UPDATE seat_changes SET ChangedAt = TIMESTAMPADD(HOUR, -1, ChangedAt) " +
+                    "WHERE FlightNumber = " + flightNumber);
+        }
+    }
+
+    // A fresh change on a flight no test uses, which becomes the high-water mark: the aged changes are then
+    // well before it, out of reach of the restore's safety window
+    private void changeElsewhere() throws SQLException {
+        TestDatabase.update(pool, "INSERT INTO seat_changes (FlightNumber, Kind) VALUES (0, " + SeatChangeLog.FLIGHT + ")");
+    }
+
+    private static String dump(int flightNumber) throws SQLException {
+        SeatMap seatMap = TestDatabase.seatMap(flightNumber);
+        StringBuilder sb = new StringBuilder();
+        for (int seat = seatMap.nextBookedSeat(1); seat != -1; seat = seatMap.nextBookedSeat(seat + 1)) {
+            sb.append(seat).append(':').append(seatMap.bookingAt(seat)).append(':').append(seatMap.passengerAt(seat)).append(';');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,107 @@
+package airline;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatMapTest {
+    @Test
+    void bookingASeatTakesItOnce() {
+        SeatMap seatMap = new SeatMap();
+        assertTrue(seatMap.book(5, "Asha"));
+        assertFalse(seatMap.book(5, "Ravi"));
+        assertTrue(seatMap.isBooked(5));
+        assertEquals("Asha", seatMap.passengerAt(5));
+        assertEquals(1, seatMap.bookedCount());
+    }
+
+    @Test
+    void rejectsSeatNumbersBelowOne() {
+        assertThrows(IllegalArgumentException.class, () -> new SeatMap().book(0, "Asha"));
+    }
+
+    @Test
+    void growsPastItsInitialSize() {
+        SeatMap seatMap = new SeatMap(64);
+        assertTrue(seatMap.book(300, "Asha"));
+        assertTrue(seatMap.isBooked(300));
+        assertFalse(seatMap.isBooked(299));
+    }
+
+    @Test
+    void releasingABookingFreesAllOfItsSeats() {
+        SeatMap seatMap = new SeatMap();
+        seatMap.book(1, "Asha", 10);
+        seatMap.book(2, "Asha", 10);
+        seatMap.book(3, "Ravi", 11);
+
+        assertArrayEquals(new int[]{1, 2}, seatMap.seatsOf(10));
+        assertArrayEquals(new int[]{1, 2}, seatMap.releaseBooking(10));
+        assertFalse(seatMap.isBooked(1));
+        assertFalse(seatMap.isBooked(2));
+        assertEquals(11, seatMap.bookingAt(3));
+        assertEquals(0, seatMap.seatsOf(10).length);
+        assertEquals(1, seatMap.bookedCount());
+    }
+
+    @Test
+    void claimedSeatsJoinTheirBookingOnceAssigned() {
+        SeatMap seatMap = new SeatMap();
+        seatMap.book(7, "Asha");
+        assertEquals(0, seatMap.bookingAt(7));
+
+        seatMap.assignBooking(42, new int[]{7});
+        assertEquals(42, seatMap.bookingAt(7));
+        assertArrayEquals(new int[]{7}, seatMap.seatsOf(42));
+    }
+
+    @Test
+    void releasingOneSeatKeepsTheRestOfTheBooking() {
+        SeatMap seatMap = new SeatMap();
+        seatMap.book(1, "Asha", 10);
+        seatMap.book(2, "Asha", 10);
+
+        assertTrue(seatMap.release(1));
+        assertFalse(seatMap.release(1));
+        assertArrayEquals(new int[]{2}, seatMap.seatsOf(10));
+    }
+
+    @Test
+    void renameChangesEverySeatOfTheBooking() {
+        SeatMap seatMap = new SeatMap();
+        seatMap.book(1, "Asha", 10);
+        seatMap.book(2, "Asha", 10);
+
+        assertEquals(2, seatMap.renameBooking(10, "Asha Rao"));
+        assertEquals("Asha Rao", seatMap.passengerAt(1));
+        assertEquals("Asha Rao", seatMap.passengerAt(2));
+        assertEquals(0, seatMap.renameBooking(99, "Nobody"));
+    }
+
+    @Test
+    void walksFreeAndBookedSeats() {
+        SeatMap seatMap = new SeatMap();
+        for (int seat : new int[]{1, 2, 4, 70}) {
+            seatMap.book(seat, "P" + seat);
+        }
+
+        assertEquals(3, seatMap.nextFreeSeat(1));
+        assertEquals(5, seatMap.nextFreeSeat(4));
+        assertEquals(4, seatMap.nextBookedSeat(3));
+        assertEquals(70, seatMap.nextBookedSeat(5));
+        assertEquals(-1, seatMap.nextBookedSeat(71));
+        assertArrayEquals(new int[]{3, 5, 6}, seatMap.freeSeats(6));
+    }
+
+    @Test
+    void pinsNest() {
+        SeatMap seatMap = new SeatMap();
+        assertFalse(seatMap.isPinned());
+        seatMap.pin();
+        seatMap.pin();
+        seatMap.unpin();
+        assertTrue(seatMap.isPinned());
+        seatMap.unpin();
+        assertFalse(seatMap.isPinned());
+    }
+}
@@ -0,0 +1,79 @@
+package airline;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.concurrent.locks.ReentrantLock;
+
+// A fresh in-memory H2 database in MySQL mode per test, wired into the static state the booking paths
+// read, the same way the benchmarks set it up
+final class TestDatabase {
+    static final int POOL_SIZE = 8;
+
+    private TestDatabase() {
+    }
+
+    static ConnectionPool open() throws SQLException {
+        String url = "jdbc:h2:mem:test" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        ConnectionPool pool = new ConnectionPool(url, "sa", "", POOL_SIZE);
+        SchemaMigrations.migrate(pool);
+        AircraftLayout.loadAll(pool);
+        FlightTicketBookingSystem.pool = pool;
+        FlightTicketBookingSystem.flightCache = new FlightCache(1000);
+        FlightTicketBookingSystem.flightSeatTrees = new SeatMapRegistry(pool, SeatMapRegistry.defaultBudgetBytes());
+        return pool;
+    }
+
+    static void close(ConnectionPool pool) {
+        FlightTicketBookingSystem.bookingLoops = null;
+        FlightTicketBookingSystem.writeBehind = null;
+        FlightTicketBookingSystem.cluster = null;
+        pool.close();
+    }
+
+    // A flight next month with the default layout and every seat free; returns its number
+    static int addFlight(ConnectionPool pool, int capacity) throws SQLException {
+        try (PooledConnection con = pool.acquire()) {
+            PreparedStatement pstmt = con.prepareReturningKeys(FlightTicketBookingSystem.INSERT_FLIGHT_SQL);
+            pstmt.setString(1, "Chennai");
+            pstmt.setString(2, "Delhi");
+            pstmt.setString(3, "09:00:00");
+            pstmt.setString(4, "11:45:00");
+            pstmt.setString(5, LocalDate.now().plusDays(30).toString());
+            pstmt.setInt(6, capacity);
+            pstmt.setDouble(7, 4500.0);
+            pstmt.setInt(8, capacity);
+            pstmt.setString(9, AircraftLayout.DEFAULT_CODE);
+            pstmt.executeUpdate();
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                keys.next();
+                return keys.getInt(1);
+            }
+        }
+    }
+
+    static int queryInt(ConnectionPool pool, String sql) throws SQLException {
+        try (PooledConnection con = pool.acquire(); Statement st = con.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    static int update(ConnectionPool pool, String sql) throws SQLException {
+        try (PooledConnection con = pool.acquire(); Statement st = con.createStatement()) {
+            return st.executeUpdate(sql);
+        }
+    }
+
+    // The flight's seat map as this process sees it, loading it if needed
+    static SeatMap seatMap(int flightNumber) throws SQLException {
+        ReentrantLock lock = ReservationEngine.lockFor(flightNumber);
+        lock.lock();
+        try {
+            return FlightTicketBookingSystem.flightSeatTrees.get(flightNumber);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package airline;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimerWheelTest {
+    private final TimerWheel wheel = new TimerWheel("test-wheel", 10, 8);
+
+    @AfterEach
+    void stopWheel() {
+        wheel.close();
+    }
+
+    @Test
+    void runsTasksInDeadlineOrder() throws InterruptedException {
+        List<Integer> fired = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(4);
+        // 250 ms wraps the 8-slot, 80 ms wheel several times
+        for (int delay : new int[]{250, 50, 150, 20}) {
+            wheel.schedule(() -> {
+                fired.add(delay);
+                done.countDown();
+            }, delay);
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(20, 50, 150, 250), fired);
+    }
+
+    @Test
+    void doesNotRunATaskBeforeItsDelay() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        long[] ranAfter = new long[1];
+        long start = System.nanoTime();
+        wheel.schedule(() -> {
+            ranAfter[0] = System.nanoTime() - start;
+            done.countDown();
+        }, 100);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(ranAfter[0] >= TimeUnit.MILLISECONDS.toNanos(100), "ran after " + ranAfter[0] + " ns");
+    }
+
+    @Test
+    void cancelledTasksDoNotRun() throws InterruptedException {
+        List<String> fired = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        TimerWheel.Timeout cancelled = wheel.schedule(() -> fired.add("cancelled"), 30);
+        wheel.schedule(() -> fired.add("kept"), 30);
+        wheel.schedule(done::countDown, 100);
+        cancelled.cancel();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("kept"), fired);
+    }
+
+    @Test
+    void aFailingTaskDoesNotStopTheWheel() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        wheel.schedule(() -> {
+            throw new IllegalStateException("boom");
+        }, 10);
+        wheel.schedule(done::countDown, 50);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+}
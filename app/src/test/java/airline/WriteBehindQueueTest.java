@@ -0,0 +1,67 @@
+package airline;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindQueueTest {
+    @TempDir
+    Path dir;
+
+    private ConnectionPool pool;
+    private WriteBehindQueue writeBehind;
+    private int flightNumber;
+
+    @BeforeEach
+    void setUp() throws SQLException, IOException {
+        pool = TestDatabase.open();
+        flightNumber = TestDatabase.addFlight(pool, 30);
+        writeBehind = WriteBehindQueue.open(pool, dir.resolve("journal"));
+        FlightTicketBookingSystem.writeBehind = writeBehind;
+    }
+
+    @AfterEach
+    void tearDown() {
+        writeBehind.close();
+        TestDatabase.close(pool);
+    }
+
+    @Test
+    void writesAcknowledgedBookingsToTheTables() throws SQLException {
+        BookingResult booked = ReservationEngine.bookSeats(flightNumber, "Asha", "asha@example.com", 2);
+        assertEquals(BookingResult.Status.BOOKED, booked.status);
+
+        writeBehind.awaitWritten();
+        assertEquals(2, TestDatabase.queryInt(pool, "SELECT COUNT(*) FROM seat_assignments WHERE BookingID = " + booked.bookingId));
+        assertEquals(28, TestDatabase.queryInt(pool, "SELECT AvailableSeats FROM Flights WHERE FlightNumber = " + flightNumber));
+        assertFalse(TestDatabase.seatMap(flightNumber).isPinned());
+    }
+
+    @Test
+    void freesTheSeatsOfABookingTheTablesRefuse() throws SQLException {
+        SeatMap seatMap = TestDatabase.seatMap(flightNumber);
+        // Seat 5 was sold behind this process's back, so writing the booking breaks the primary key
+        TestDatabase.update(pool, "INSERT INTO seat_assignments (FlightNumber, SeatNumber, PassengerName, BookingID) " +
+                "VALUES (" + flightNumber + ", 5, 'Ravi', NULL)");
+
+        BookingResult booked = ReservationEngine.bookSpecificSeat(flightNumber, 5, "Asha", "asha@example.com");
+        assertEquals(BookingResult.Status.BOOKED, booked.status);
+        assertEquals(29, FlightTicketBookingSystem.flightCache.get(pool, flightNumber).availableSeats);
+
+        writeBehind.awaitWritten();
+        assertFalse(seatMap.isBooked(5));
+        assertFalse(seatMap.isPinned());
+        assertEquals(30, FlightTicketBookingSystem.flightCache.get(pool, flightNumber).availableSeats);
+        assertEquals(0, TestDatabase.queryInt(pool, "SELECT COUNT(*) FROM bookings WHERE BookingID = " + booked.bookingId));
+        // Nothing left to cancel, in the map or the tables
+        assertEquals(BookingResult.Status.BOOKING_NOT_FOUND, ReservationEngine.cancel(booked.bookingId).status);
+        assertEquals(30, TestDatabase.queryInt(pool, "SELECT AvailableSeats FROM Flights WHERE FlightNumber = " + flightNumber));
+    }
+}
@@ -0,0 +1,94 @@
+package airline;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// End-to-end booking flows through ReservationEngine against an in-memory H2 database in MySQL mode.
+// Each booking is cancelled in the same invocation so the flight never fills up.
+// Run with -t <threads> to measure contention on a single flight.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingFlowBenchmark {
+    private static final int FLIGHT_SEATS = 100_000;
+
+    @Param({"1", "4"})
+    public int seatsPerBooking;
+
+    private int flightNumber;
+
+    @State(Scope.Thread)
+    public static class Passenger {
+        private static final AtomicInteger ids = new AtomicInteger();
+
+        private final String name = "Passenger " + ids.incrementAndGet();
+        private final String email = "passenger" + ids.get() + "@example.com";
+        private int nextSeat;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        String url = "jdbc:h2:mem:bench" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        FlightTicketBookingSystem.pool = new ConnectionPool(url, "sa", "", ConnectionPool.defaultSize());
+        FlightTicketBookingSystem.flightCache = new FlightCache(FlightCache.defaultSize());
+        FlightTicketBookingSystem.flightSeatTrees = new SeatMapRegistry(FlightTicketBookingSystem.pool,
+                SeatMapRegistry.defaultBudgetBytes());
+        SchemaMigrations.migrate(FlightTicketBookingSystem.pool);
+
+        try (PooledConnection con = FlightTicketBookingSystem.pool.acquire()) {
+            PreparedStatement pstmt = con.prepareReturningKeys(FlightTicketBookingSystem.INSERT_FLIGHT_SQL);
+            pstmt.setString(1, "Chennai");
+            pstmt.setString(2, "Delhi");
+            pstmt.setString(3, "09:00:00");
+            pstmt.setString(4, "11:45:00");
+            pstmt.setString(5, LocalDate.now().plusDays(30).toString());
+            pstmt.setInt(6, FLIGHT_SEATS);
+            pstmt.setDouble(7, 4500.0);
+            // Capacity beyond the default layout's rows; extra seats repeat its last row
+            pstmt.setInt(8, FLIGHT_SEATS);
+            pstmt.setString(9, AircraftLayout.DEFAULT_CODE);
+            pstmt.executeUpdate();
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                keys.next();
+                flightNumber = keys.getInt(1);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FlightTicketBookingSystem.pool.close();
+    }
+
+    // bookTicket followed by cancelBooking
+    @Benchmark
+    public int bookAndCancel(Passenger passenger) throws SQLException {
+        BookingResult booked = ReservationEngine.bookSeats(flightNumber, passenger.name, passenger.email, seatsPerBooking);
+        if (!booked.isSuccess()) throw new IllegalStateException("Booking failed: " + booked.status);
+        return ReservationEngine.cancel(booked.bookingId).seats.length;
+    }
+
+    // selectSpecificSeat followed by cancelBooking; threads walk different seats
+    @Benchmark
+    public int selectSeatAndCancel(Passenger passenger) throws SQLException {
+        int seat = 1 + Math.floorMod(passenger.name.hashCode() * 31 + passenger.nextSeat++, FLIGHT_SEATS / 2);
+        BookingResult booked = ReservationEngine.bookSpecificSeat(flightNumber, seat, passenger.name, passenger.email);
+        if (!booked.isSuccess()) return 0;
+        return ReservationEngine.cancel(booked.bookingId).seats.length;
+    }
+
+    // viewAvailableSeats
+    @Benchmark
+    public int availability() throws SQLException {
+        return ReservationEngine.availability(flightNumber).freeSeats.length;
+    }
+}
@@ -0,0 +1,105 @@
+package airline;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Seat map operations on a whole flight, with seats visited in sequential or shuffled order
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeatMapBenchmark {
+    public enum Order { SEQUENTIAL, RANDOM }
+
+    private static final SeatType[] PREFERENCES = {null, SeatType.WINDOW, SeatType.AISLE, null, SeatType.MIDDLE};
+    private static final AircraftLayout LAYOUT = AircraftLayout.get(AircraftLayout.DEFAULT_CODE);
+
+    @Param({"180", "850"})
+    public int seats;
+
+    @Param
+    public Order order;
+
+    private int[] seatOrder;
+    private SeatMap full;
+    private SeatMap half;
+
+    @Setup
+    public void setup() {
+        seatOrder = new int[seats];
+        for (int i = 0; i < seats; i++) {
+            seatOrder[i] = i + 1;
+        }
+        if (order == Order.RANDOM) {
+            Random random = new Random(42);
+            for (int i = seats - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int t = seatOrder[i];
+                seatOrder[i] = seatOrder[j];
+                seatOrder[j] = t;
+            }
+        }
+
+        full = new SeatMap(seats);
+        half = new SeatMap(seats);
+        for (int seat : seatOrder) {
+            full.book(seat, "Passenger " + seat);
+            if ((seat & 1) == 0) half.book(seat, "Passenger " + seat);
+        }
+    }
+
+    @Benchmark
+    public int bookAll() {
+        SeatMap seatMap = new SeatMap();
+        for (int seat : seatOrder) {
+            seatMap.book(seat, "Passenger");
+        }
+        return seatMap.bookedCount();
+    }
+
+    @Benchmark
+    public void isBooked(Blackhole bh) {
+        for (int seat : seatOrder) {
+            bh.consume(full.isBooked(seat));
+        }
+    }
+
+    @Benchmark
+    public int bookThenReleaseAll() {
+        SeatMap seatMap = new SeatMap(seats);
+        for (int seat : seatOrder) {
+            seatMap.book(seat, "Passenger");
+        }
+        for (int seat : seatOrder) {
+            seatMap.release(seat);
+        }
+        return seatMap.bookedCount();
+    }
+
+    @Benchmark
+    public int bookedCount() {
+        return full.bookedCount();
+    }
+
+    // Parties of one to four with mixed seat preferences until one no longer fits
+    @Benchmark
+    public int bookPartiesUntilFull() {
+        SeatMap seatMap = new SeatMap(seats);
+        int parties = 0;
+        while (seatMap.bookGroup(1 + parties % 4, PREFERENCES[parties % PREFERENCES.length], "Passenger", LAYOUT, seats) != null) {
+            parties++;
+        }
+        return parties;
+    }
+
+    // The scan behind viewAvailableSeats, on a half-booked flight
+    @Benchmark
+    public int[] freeSeatScan() {
+        return half.freeSeats(seats);
+    }
+}
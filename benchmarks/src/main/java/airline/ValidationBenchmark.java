@@ -0,0 +1,58 @@
+package airline;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Per-call helpers used by the menus: seat descriptions and date checks
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+    private static final int SEATS = 180;
+    private static final AircraftLayout LAYOUT = AircraftLayout.parse("A320", "Airbus A320", "WMA|AMW", 30,
+            "B:1-3,E:4-30", "10,11");
+
+    private final String futureDate = LocalDate.now().plusDays(30).toString();
+    private final String pastDate = LocalDate.now().minusDays(30).toString();
+    private final String invalidDate = "2024-02-30";
+    private final String time = "09:45:30";
+
+    @Benchmark
+    @OperationsPerInvocation(SEATS)
+    public void describeSeat(Blackhole bh) {
+        for (int seat = 1; seat <= SEATS; seat++) {
+            bh.consume(FlightTicketBookingSystem.describeSeat(LAYOUT, seat));
+        }
+    }
+
+    @Benchmark
+    public boolean isValidDate() {
+        return FlightTicketBookingSystem.isValidDate(futureDate);
+    }
+
+    @Benchmark
+    public boolean isValidDateRejects() {
+        return FlightTicketBookingSystem.isValidDate(invalidDate);
+    }
+
+    @Benchmark
+    public boolean isFutureDate() {
+        return FlightTicketBookingSystem.isFutureDate(futureDate);
+    }
+
+    @Benchmark
+    public boolean isFutureDatePast() {
+        return FlightTicketBookingSystem.isFutureDate(pastDate);
+    }
+
+    @Benchmark
+    public boolean isValidTime() {
+        return FlightTicketBookingSystem.isValidTime(time);
+    }
+}